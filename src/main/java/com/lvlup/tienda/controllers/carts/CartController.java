@@ -1,19 +1,26 @@
 package com.lvlup.tienda.controllers.carts;
 
+import com.lvlup.tienda.dtos.CartViewDto;
+import com.lvlup.tienda.exceptions.PreconditionFailedException;
 import com.lvlup.tienda.models.carts.Cart;
-import com.lvlup.tienda.models.users.User;
-import com.lvlup.tienda.repositories.users.UserRepository;
+import com.lvlup.tienda.security.UserPrincipal;
+import com.lvlup.tienda.services.carts.CartOperation;
 import com.lvlup.tienda.services.carts.CartService;
+import com.lvlup.tienda.services.carts.CartUpdate;
+import com.lvlup.tienda.utils.EntityTags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -24,26 +31,29 @@ public class CartController {
     @Autowired
     private CartService cartService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     /**
      * Obtiene el carrito del usuario autenticado
      */
     @GetMapping
-    @Operation(summary = "Obtener carrito", description = "Obtiene el carrito del usuario autenticado con todos sus items")
-    public ResponseEntity<?> getMyCart(Authentication authentication) {
+    @Operation(summary = "Obtener carrito", description = "Obtiene el carrito del usuario autenticado con todos sus items, " +
+            "el nombre, precio y stock actuales de cada producto, el total y la cantidad de items. " +
+            "Responde con ETag; con If-None-Match retorna 304 sin cuerpo si el carrito no cambió")
+    public ResponseEntity<?> getMyCart(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication authentication) {
         try {
             Long userId = getUserIdFromAuthentication(authentication);
-            Cart cart = cartService.getCartByUserId(userId);
-            BigDecimal total = cartService.calculateCartTotal(userId);
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("cart", cart);
-            response.put("total", total);
-            response.put("itemCount", cart.getCartItems().size());
+            // Para el polling: si la versión coincide no se arma ni serializa la vista
+            if (ifNoneMatch != null) {
+                Long version = cartService.getCartVersion(userId);
+                if (EntityTags.matchesIfNoneMatch(ifNoneMatch, version)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(EntityTags.of(version)).build();
+                }
+            }
 
-            return ResponseEntity.ok(response);
+            CartViewDto view = cartService.getCartView(userId);
+            return ResponseEntity.ok().eTag(EntityTags.of(view.getVersion())).body(view);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Error al obtener el carrito: " + e.getMessage()));
@@ -57,24 +67,30 @@ public class CartController {
     @Operation(summary = "Agregar producto", description = "Agrega un producto al carrito o incrementa su cantidad si ya existe")
     public ResponseEntity<?> addProductToCart(
             @RequestBody AddToCartRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) {
         try {
             Long userId = getUserIdFromAuthentication(authentication);
 
-            Cart cart = cartService.addProductToCart(
+            CartUpdate update = cartService.addProductToCart(
                     userId,
                     request.getProductId(),
-                    request.getQuantity() != null ? request.getQuantity() : 1
+                    request.getQuantity() != null ? request.getQuantity() : 1,
+                    EntityTags.parseIfMatch(ifMatch)
             );
+            Cart cart = update.cart();
 
-            BigDecimal total = cartService.calculateCartTotal(userId);
+            BigDecimal total = cart.getTotal();
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Producto agregado al carrito exitosamente");
             response.put("cart", cart);
             response.put("total", total);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(EntityTags.of(update.version())).body(response);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
@@ -84,6 +100,45 @@ public class CartController {
         }
     }
 
+    /**
+     * Aplica varias operaciones sobre el carrito en una sola petición
+     */
+    @PatchMapping
+    @Operation(summary = "Sincronizar carrito", description = "Aplica en una sola transacción una lista de operaciones por producto: " +
+            "add (suma unidades), set (fija la cantidad, 0 elimina) y remove. Si alguna falla no se aplica ninguna. " +
+            "Retorna el carrito final")
+    public ResponseEntity<?> applyCartOperations(
+            @RequestBody BatchCartRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication authentication) {
+        try {
+            Long userId = getUserIdFromAuthentication(authentication);
+
+            List<CartOperation> operations = new ArrayList<>();
+            if (request.getOperations() != null) {
+                for (CartOperationRequest operation : request.getOperations()) {
+                    operations.add(new CartOperation(
+                            CartOperation.Type.from(operation.getOp()),
+                            operation.getProductId(),
+                            operation.getQuantity() != null ? operation.getQuantity() : 0
+                    ));
+                }
+            }
+
+            CartViewDto view = cartService.applyOperations(userId, operations, EntityTags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(EntityTags.of(view.getVersion())).body(view);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error al sincronizar el carrito: " + e.getMessage()));
+        }
+    }
+
     /**
      * Actualiza la cantidad de un item del carrito
      */
@@ -92,24 +147,30 @@ public class CartController {
     public ResponseEntity<?> updateCartItemQuantity(
             @PathVariable Long cartItemId,
             @RequestBody UpdateQuantityRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) {
         try {
             Long userId = getUserIdFromAuthentication(authentication);
 
-            Cart cart = cartService.updateCartItemQuantity(
+            CartUpdate update = cartService.updateCartItemQuantity(
                     userId,
                     cartItemId,
-                    request.getQuantity()
+                    request.getQuantity(),
+                    EntityTags.parseIfMatch(ifMatch)
             );
+            Cart cart = update.cart();
 
-            BigDecimal total = cartService.calculateCartTotal(userId);
+            BigDecimal total = cart.getTotal();
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Cantidad actualizada exitosamente");
             response.put("cart", cart);
             response.put("total", total);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(EntityTags.of(update.version())).body(response);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
@@ -126,19 +187,24 @@ public class CartController {
     @Operation(summary = "Eliminar producto", description = "Elimina un producto específico del carrito")
     public ResponseEntity<?> removeProductFromCart(
             @PathVariable Long cartItemId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) {
         try {
             Long userId = getUserIdFromAuthentication(authentication);
 
-            Cart cart = cartService.removeProductFromCart(userId, cartItemId);
-            BigDecimal total = cartService.calculateCartTotal(userId);
+            CartUpdate update = cartService.removeProductFromCart(userId, cartItemId, EntityTags.parseIfMatch(ifMatch));
+            Cart cart = update.cart();
+            BigDecimal total = cart.getTotal();
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Producto eliminado del carrito exitosamente");
             response.put("cart", cart);
             response.put("total", total);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(EntityTags.of(update.version())).body(response);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
@@ -153,12 +219,21 @@ public class CartController {
      */
     @DeleteMapping
     @Operation(summary = "Limpiar carrito", description = "Elimina todos los productos del carrito")
-    public ResponseEntity<?> clearCart(Authentication authentication) {
+    public ResponseEntity<?> clearCart(
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication authentication) {
         try {
             Long userId = getUserIdFromAuthentication(authentication);
-            cartService.clearCart(userId);
+            Long version = cartService.clearCart(userId, EntityTags.parseIfMatch(ifMatch));
 
-            return ResponseEntity.ok(Map.of("message", "Carrito limpiado exitosamente"));
+            return ResponseEntity.ok().eTag(EntityTags.of(version))
+                    .body(Map.of("message", "Carrito limpiado exitosamente"));
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Error al limpiar el carrito: " + e.getMessage()));
@@ -186,10 +261,8 @@ public class CartController {
      * Helper method para obtener el ID del usuario autenticado
      */
     private Long getUserIdFromAuthentication(Authentication authentication) {
-        String correo = authentication.getName();
-        User user = userRepository.findByCorreo(correo)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        return user.getId();
+        // El id viene en el token JWT, no se consulta la tabla users
+        return UserPrincipal.currentUserId(authentication);
     }
 
     // DTOs internos para los requests
@@ -215,6 +288,48 @@ public class CartController {
         }
     }
 
+    public static class CartOperationRequest {
+        private String op;
+        private Long productId;
+        private Integer quantity;
+
+        public String getOp() {
+            return op;
+        }
+
+        public void setOp(String op) {
+            this.op = op;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    public static class BatchCartRequest {
+        private List<CartOperationRequest> operations;
+
+        public List<CartOperationRequest> getOperations() {
+            return operations;
+        }
+
+        public void setOperations(List<CartOperationRequest> operations) {
+            this.operations = operations;
+        }
+    }
+
     public static class UpdateQuantityRequest {
         private Integer quantity;
 
@@ -0,0 +1,90 @@
+package com.lvlup.tienda.controllers.orders;
+
+import com.lvlup.tienda.dtos.OrderDto;
+import com.lvlup.tienda.security.UserPrincipal;
+import com.lvlup.tienda.services.orders.OrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/orders")
+@Tag(name = "Órdenes", description = "API para gestión de órdenes de compra")
+public class OrderController {
+
+    @Autowired
+    private OrderService orderService;
+
+    /**
+     * Genera una orden a partir del carrito del usuario autenticado
+     */
+    @PostMapping("/checkout")
+    @Operation(summary = "Checkout", description = "Crea una orden con los productos del carrito, descuenta el stock y vacía el carrito. " +
+            "Responde 409 si algún producto no tiene stock suficiente")
+    public ResponseEntity<OrderDto> checkout(
+            @Valid @RequestBody CheckoutRequest request,
+            Authentication authentication) {
+        Long userId = getUserIdFromAuthentication(authentication);
+        OrderDto order = orderService.checkout(
+                userId,
+                request.getMetodoPago(),
+                request.getDireccionEnvio(),
+                request.getCodigoCupon()
+        );
+        return ResponseEntity.status(HttpStatus.CREATED).body(order);
+    }
+
+    /**
+     * Helper method para obtener el ID del usuario autenticado
+     */
+    private Long getUserIdFromAuthentication(Authentication authentication) {
+        // El id viene en el token JWT, no se consulta la tabla users
+        return UserPrincipal.currentUserId(authentication);
+    }
+
+    // DTOs internos para los requests
+
+    public static class CheckoutRequest {
+        @NotBlank(message = "El método de pago es obligatorio")
+        @Size(max = 255)
+        private String metodoPago;
+
+        @NotBlank(message = "La dirección de envío es obligatoria")
+        @Size(max = 255)
+        private String direccionEnvio;
+
+        @Size(max = 255)
+        private String codigoCupon;
+
+        public String getMetodoPago() {
+            return metodoPago;
+        }
+
+        public void setMetodoPago(String metodoPago) {
+            this.metodoPago = metodoPago;
+        }
+
+        public String getDireccionEnvio() {
+            return direccionEnvio;
+        }
+
+        public void setDireccionEnvio(String direccionEnvio) {
+            this.direccionEnvio = direccionEnvio;
+        }
+
+        public String getCodigoCupon() {
+            return codigoCupon;
+        }
+
+        public void setCodigoCupon(String codigoCupon) {
+            this.codigoCupon = codigoCupon;
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.lvlup.tienda.controllers.products;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lvlup.tienda.dtos.CursorPageDto;
+import com.lvlup.tienda.dtos.ProductDto;
+import com.lvlup.tienda.dtos.ProductSuggestionDto;
 import com.lvlup.tienda.models.products.Product;
 import com.lvlup.tienda.services.products.ProductService;
+import com.lvlup.tienda.services.products.ProductSort;
+import com.lvlup.tienda.utils.EntityTags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize; // <--- IMPORTAR
 import org.springframework.validation.annotation.Validated;
@@ -25,35 +33,51 @@ public class ProductController {
     private ProductService productService;
 
     @GetMapping
-    @Operation(summary = "Obtener todos los productos", description = "Retorna una lista de todos los productos disponibles")
+    @Operation(summary = "Obtener productos paginados", description = "Retorna una página de productos ordenada por id o por categoría. " +
+            "Para obtener la página siguiente se envía el nextCursor de la respuesta anterior")
     //@PreAuthorize("hasAuthority('PRODUCT_READ')") // <--- Requiere permiso de lectura (Admin o Cliente)
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.status(HttpStatus.OK).body(productService.getAllProducts());
+    public ResponseEntity<CursorPageDto<ProductDto>> getAllProducts(
+            @RequestParam(required = false) String categoria,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(productService.getProductsPage(categoria, ProductSort.from(sort, direction), cursor, limit));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Obtener producto por ID", description = "Retorna un producto específico por su ID")
     //@PreAuthorize("hasAuthority('PRODUCT_READ')")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductDto> getProductById(@PathVariable Long id) {
         return productService.getProductById(id)
-                .map(product -> ResponseEntity.ok(product))
+                .map(product -> ResponseEntity.ok().eTag(EntityTags.of(product.getVersion())).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/categoria/{categoria}")
     @Operation(summary = "Buscar productos por categoría", description = "Retorna todos los productos de una categoría específica")
     //@PreAuthorize("hasAuthority('PRODUCT_READ')")
-    public ResponseEntity<List<Product>> getProductsByCategoria(@PathVariable String categoria) {
+    public ResponseEntity<List<ProductDto>> getProductsByCategoria(@PathVariable String categoria) {
         return ResponseEntity.ok(productService.getProductsByCategoria(categoria));
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Buscar productos por nombre", description = "Busca productos que contengan el texto especificado en su nombre")
+    @Operation(summary = "Buscar productos", description = "Busca productos por nombre, categoría y descripción. " +
+            "Ignora tildes y mayúsculas, acepta prefijos y errores de tipeo menores, y ordena por relevancia")
     //@PreAuthorize("hasAuthority('PRODUCT_READ')")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String q) {
+    public ResponseEntity<List<ProductDto>> searchProducts(@RequestParam String q) {
         return ResponseEntity.ok(productService.searchProducts(q));
     }
 
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocompletar productos", description = "Retorna id y nombre de los productos cuyo nombre (o alguna de sus palabras) comienza con el prefijo")
+    public ResponseEntity<List<ProductSuggestionDto>> suggestProducts(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggestProducts(prefix, limit));
+    }
+
     @PostMapping
     @Operation(summary = "Crear producto", description = "Crea un nuevo producto (Requiere permiso PRODUCT_CREATE)")
     @PreAuthorize("hasAuthority('PRODUCT_CREATE')") // <--- Solo quien tenga este permiso (ej: Admin/Vendedor)
@@ -62,13 +86,22 @@ public class ProductController {
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Actualizar producto", description = "Actualiza los datos de un producto existente (Requiere autenticación)")
-    // TEMPORAL: Comentado para permitir checkout - En producción debería ser un endpoint dedicado /api/v1/orders/checkout
-    //@PreAuthorize("hasAuthority('PRODUCT_UPDATE')")
+    @Operation(summary = "Actualizar producto", description = "Actualiza los datos de un producto existente (Requiere permiso PRODUCT_UPDATE)")
+    @PreAuthorize("hasAuthority('PRODUCT_UPDATE')")
     public ResponseEntity<Product> updateProduct(@PathVariable Long id, @Valid @RequestBody Product product) {
         return ResponseEntity.ok(productService.updateProduct(id, product));
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Modificar producto parcialmente", description = "Aplica un JSON Merge Patch: solo cambian los campos enviados " +
+            "(null borra el valor). Con If-Match responde 412 si el producto cambió desde que se leyó su ETag (Requiere permiso PRODUCT_UPDATE)")
+    @PreAuthorize("hasAuthority('PRODUCT_UPDATE')")
+    public ResponseEntity<Product> patchProduct(@PathVariable Long id, @RequestBody JsonNode patch,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Product patched = productService.patchProduct(id, patch, EntityTags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.of(patched.getVersion())).body(patched);
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Eliminar producto", description = "Elimina un producto del catálogo (Requiere permiso PRODUCT_DELETE)")
     @PreAuthorize("hasAuthority('PRODUCT_DELETE')")
@@ -0,0 +1,63 @@
+package com.lvlup.tienda.controllers.tokens;
+
+import com.lvlup.tienda.security.JwtTokenIssuer.TokenPair;
+import com.lvlup.tienda.services.tokens.SessionTokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/token")
+@Tag(name = "Tokens", description = "API para refrescar y revocar sesiones JWT")
+public class TokenController {
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
+    /**
+     * Emite un token de acceso nuevo a partir del token de refresco, sin pedir la contraseña
+     */
+    @PostMapping("/refresh")
+    @Operation(summary = "Refrescar token", description = "Entrega un nuevo token de acceso y un nuevo token de refresco. " +
+            "El token de refresco usado queda revocado")
+    public ResponseEntity<Map<String, String>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        TokenPair tokens = sessionTokenService.refresh(request.getRefreshToken());
+
+        Map<String, String> body = new HashMap<>();
+        body.put("token", tokens.accessToken());
+        body.put("refreshToken", tokens.refreshToken());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Cierra la sesión asociada al token de refresco
+     */
+    @PostMapping("/revoke")
+    @Operation(summary = "Revocar sesión", description = "Revoca el token de refresco y los tokens de acceso emitidos con él")
+    public ResponseEntity<Void> revoke(@Valid @RequestBody RefreshTokenRequest request) {
+        sessionTokenService.revoke(request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
+    // DTOs internos para los requests
+
+    public static class RefreshTokenRequest {
+        @NotBlank(message = "El token de refresco es obligatorio")
+        private String refreshToken;
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+
+        public void setRefreshToken(String refreshToken) {
+            this.refreshToken = refreshToken;
+        }
+    }
+}
@@ -1,18 +1,31 @@
 package com.lvlup.tienda.controllers.users;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lvlup.tienda.dtos.CursorPageDto;
+import com.lvlup.tienda.dtos.UserImportResultDto;
+import com.lvlup.tienda.dtos.UserSummaryDto;
 import com.lvlup.tienda.models.users.User;
+import com.lvlup.tienda.security.UserPrincipal;
+import com.lvlup.tienda.services.users.RolePermissionRegistry;
+import com.lvlup.tienda.services.users.UserImportService;
 import com.lvlup.tienda.services.users.UserService;
+import com.lvlup.tienda.utils.EntityTags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication; // <--- IMPORTANTE: No borrar
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 @CrossOrigin(originPatterns = "*")
 @RestController
@@ -24,10 +37,25 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private RolePermissionRegistry rolePermissionRegistry;
+
     @GetMapping
-    @Operation(summary = "Obtener todos los usuarios", description = "Retorna una lista de todos los usuarios (Solo ADMIN)")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.status(HttpStatus.OK).body(this.userService.findAll());
+    @Operation(summary = "Obtener usuarios paginados", description = "Retorna una página de usuarios ordenada por id, " +
+            "filtrable por rol, región y comuna (Solo ADMIN). Para la página siguiente se envía el nextCursor de la respuesta anterior. " +
+            "Con includeRoles=true se agregan los roles de cada usuario")
+    public ResponseEntity<CursorPageDto<UserSummaryDto>> getAllUsers(
+            @RequestParam(required = false) String rol,
+            @RequestParam(required = false) String region,
+            @RequestParam(required = false) String comuna,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean includeRoles) {
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(this.userService.findPage(rol, region, comuna, cursor, limit, includeRoles));
     }
 
     // ✅ NUEVO ENDPOINT: Este es el que te falta para el Login
@@ -35,16 +63,31 @@ public class UserController {
     @GetMapping("/profile")
     @Operation(summary = "Obtener perfil", description = "Obtiene los datos del usuario autenticado")
     public ResponseEntity<User> getProfile(Authentication authentication) {
-        return this.userService.findByCorreo(authentication.getName())
+        return this.userService.findById(UserPrincipal.currentUserId(authentication))
                 .map(user -> ResponseEntity.ok(user))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/availability")
+    @Operation(summary = "Verificar disponibilidad", description = "Indica si el correo y/o el RUT están disponibles para registrarse")
+    public ResponseEntity<Map<String, Boolean>> checkAvailability(
+            @RequestParam(required = false) String correo,
+            @RequestParam(required = false) String rut) {
+        Map<String, Boolean> body = new HashMap<>();
+        if (correo != null && !correo.isBlank()) {
+            body.put("correo", !this.userService.existsByCorreo(correo));
+        }
+        if (rut != null && !rut.isBlank()) {
+            body.put("rut", !this.userService.existsByRut(rut));
+        }
+        return ResponseEntity.ok(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener usuario por ID", description = "Retorna un usuario específico por su ID")
     public ResponseEntity<User> getUserById(@PathVariable Long id) {
         return this.userService.findById(id)
-                .map(user -> ResponseEntity.ok(user))
+                .map(user -> ResponseEntity.ok().eTag(EntityTags.of(user.getVersion())).body(user))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -62,10 +105,41 @@ public class UserController {
         return this.createUser(user);
     }
 
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Importar usuarios (Admin)", description = "Importa usuarios desde NDJSON (un objeto por línea) o CSV " +
+            "con encabezado. Las filas inválidas o duplicadas se informan en errors sin detener la importación")
+    public ResponseEntity<UserImportResultDto> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        boolean csv = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"));
+        return ResponseEntity.ok(this.userImportService.importUsers(body, csv));
+    }
+
+    @PostMapping("/roles/refresh")
+    @Operation(summary = "Recargar roles y permisos (Admin)", description = "Vuelve a leer roles y permisos desde la base de datos " +
+            "después de modificarlos directamente en las tablas roles, permisos o roles_permisos")
+    public ResponseEntity<Void> refreshRoles() {
+        this.rolePermissionRegistry.refresh();
+        return ResponseEntity.noContent().build();
+    }
+
     @PutMapping("/{id}")
-    @Operation(summary = "Actualizar usuario", description = "Actualiza los datos de un usuario existente")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @Valid @RequestBody User user) {
-        return ResponseEntity.ok(this.userService.update(id, user));
+    @Operation(summary = "Actualizar usuario", description = "Actualiza los datos de un usuario existente. " +
+            "Un CLIENTE solo puede actualizar su propia cuenta y no puede cambiar el rol (403)")
+    public ResponseEntity<User> updateUser(@PathVariable Long id, @Valid @RequestBody User user,
+                                           Authentication authentication) {
+        return ResponseEntity.ok(this.userService.update(id, user, authentication));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Modificar usuario parcialmente", description = "Aplica un JSON Merge Patch: solo cambian los campos enviados " +
+            "(null borra el valor). Con If-Match responde 412 si el usuario cambió desde que se leyó su ETag. " +
+            "Un CLIENTE solo puede modificar su propia cuenta y no puede enviar rol ni admin (403)")
+    public ResponseEntity<User> patchUser(@PathVariable Long id, @RequestBody JsonNode patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          Authentication authentication) {
+        User patched = this.userService.patch(id, patch, EntityTags.parseIfMatch(ifMatch), authentication);
+        return ResponseEntity.ok().eTag(EntityTags.of(patched.getVersion())).body(patched);
     }
 
     @DeleteMapping("/{id}")
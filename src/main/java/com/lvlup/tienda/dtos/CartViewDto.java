@@ -0,0 +1,48 @@
+package com.lvlup.tienda.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Vista de solo lectura del carrito: mismo formato que la respuesta anterior (cart, total, itemCount)
+ * más el nombre, precio y stock actuales de cada producto. Se arma con una sola consulta.
+ */
+@Getter
+@AllArgsConstructor
+public class CartViewDto {
+    private CartContent cart;
+    private BigDecimal total;
+    private int itemCount;
+
+    // Se envía como ETag, no en el cuerpo
+    @JsonIgnore
+    private Long version;
+
+    /**
+     * id es null si el usuario todavía no tiene carrito: la lectura nunca lo crea.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CartContent {
+        private Long id;
+        private Long userId;
+        private List<Item> cartItems;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Item {
+        private Long id;
+        private Long productId;
+        private Integer quantity;
+        private BigDecimal unitPrice;
+        private Long cartId;
+        private String productName;
+        private Integer productPrice;
+        private Integer productStock;
+    }
+}
@@ -0,0 +1,19 @@
+package com.lvlup.tienda.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Página de resultados paginada por cursor (keyset).
+ * nextCursor es null cuando no quedan más resultados.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> items;
+    private String nextCursor;
+    private int limit;
+    private boolean hasMore;
+}
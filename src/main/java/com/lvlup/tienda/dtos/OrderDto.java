@@ -0,0 +1,20 @@
+package com.lvlup.tienda.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class OrderDto {
+    private Long id;
+    private Long userId;
+    private Integer total;
+    private Integer descuento;
+    private String estado;
+    private String metodoPago;
+    private String direccionEnvio;
+    private String codigoCupon;
+    private List<OrderItemDto> items;
+}
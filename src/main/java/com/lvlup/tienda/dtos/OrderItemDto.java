@@ -0,0 +1,13 @@
+package com.lvlup.tienda.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class OrderItemDto {
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private Integer unitPrice;
+}
@@ -0,0 +1,42 @@
+package com.lvlup.tienda.dtos;
+
+import com.lvlup.tienda.models.products.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista inmutable de un producto, con el mismo formato JSON que la entidad.
+ * Es lo que guarda la caché del catálogo: varias peticiones comparten la misma instancia,
+ * así que no puede tener setters.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductDto {
+    private final Long id;
+    private final String nombre;
+    private final String categoria;
+    private final String descripcion;
+    private final String imagen;
+    private final Integer precio;
+    private final Integer stock;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+
+    public static ProductDto from(Product product) {
+        return new ProductDto(
+                product.getId(),
+                product.getNombre(),
+                product.getCategoria(),
+                product.getDescripcion(),
+                product.getImagen(),
+                product.getPrecio(),
+                product.getStock(),
+                product.getCreatedAt(),
+                product.getUpdatedAt(),
+                product.getVersion()
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package com.lvlup.tienda.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ProductSuggestionDto {
+    private Long id;
+    private String nombre;
+}
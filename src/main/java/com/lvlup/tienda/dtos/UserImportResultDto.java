@@ -0,0 +1,28 @@
+package com.lvlup.tienda.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de usuarios.
+ * errors trae como máximo las primeras 1000 filas con error (errorsTruncated indica si hubo más).
+ */
+@Getter
+@AllArgsConstructor
+public class UserImportResultDto {
+    private int processed;
+    private int imported;
+    private int failed;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+        private int line;
+        private String correo;
+        private String message;
+    }
+}
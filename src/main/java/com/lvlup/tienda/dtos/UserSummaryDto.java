@@ -0,0 +1,45 @@
+package com.lvlup.tienda.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Vista resumida de un usuario para el listado de administración.
+ * Se construye directamente en la consulta JPQL, sin cargar las entidades ni sus roles;
+ * roles solo se completa cuando se pide explícitamente.
+ */
+@Getter
+public class UserSummaryDto {
+    private final Long id;
+    private final String nombre;
+    private final String apellido;
+    private final String correo;
+    private final String rut;
+    private final String telefono;
+    private final String region;
+    private final String comuna;
+    private final String rol;
+    private final LocalDateTime createdAt;
+
+    @Setter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> roles;
+
+    public UserSummaryDto(Long id, String nombre, String apellido, String correo, String rut, String telefono,
+                          String region, String comuna, String rol, LocalDateTime createdAt) {
+        this.id = id;
+        this.nombre = nombre;
+        this.apellido = apellido;
+        this.correo = correo;
+        this.rut = rut;
+        this.telefono = telefono;
+        this.region = region;
+        this.comuna = comuna;
+        this.rol = rol;
+        this.createdAt = createdAt;
+    }
+}
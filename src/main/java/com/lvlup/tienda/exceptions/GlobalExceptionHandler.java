@@ -1,8 +1,10 @@
 package com.lvlup.tienda.exceptions;
 
 import com.lvlup.tienda.models.dtos.ErrorDTO;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -13,6 +15,75 @@ import java.util.stream.Collectors;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<ErrorDTO> handleInsufficientStockException(InsufficientStockException ex) {
+        ErrorDTO error = new ErrorDTO(
+                "Stock insuficiente",
+                ex.getMessage(),
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorDTO> handlePreconditionFailedException(PreconditionFailedException ex) {
+        ErrorDTO error = new ErrorDTO(
+                "Versión desactualizada",
+                ex.getMessage(),
+                LocalDateTime.now(),
+                HttpStatus.PRECONDITION_FAILED.value()
+        );
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+
+    // Lanzada desde los servicios (por ejemplo, modificar la cuenta de otro usuario); sin este handler
+    // caería en el de RuntimeException y respondería 400
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ErrorDTO> handleAccessDeniedException(AccessDeniedException ex) {
+        ErrorDTO error = new ErrorDTO(
+                "Acceso denegado",
+                ex.getMessage(),
+                LocalDateTime.now(),
+                HttpStatus.FORBIDDEN.value()
+        );
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+    }
+
+    // Otra transacción modificó la misma fila entre la lectura y el UPDATE (@Version)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorDTO> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ErrorDTO error = new ErrorDTO(
+                "Conflicto de concurrencia",
+                "El recurso fue modificado por otra petición, vuelve a cargarlo e intenta nuevamente",
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<ErrorDTO> handleInvalidTokenException(InvalidTokenException ex) {
+        ErrorDTO error = new ErrorDTO(
+                "Token inválido",
+                ex.getMessage(),
+                LocalDateTime.now(),
+                HttpStatus.UNAUTHORIZED.value()
+        );
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+    }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<ErrorDTO> handlePasswordHashingRejectedException(PasswordHashingRejectedException ex) {
+        ErrorDTO error = new ErrorDTO(
+                "Servicio saturado",
+                ex.getMessage(),
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(error);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorDTO> handleRuntimeException(RuntimeException ex) {
         ErrorDTO error = new ErrorDTO(
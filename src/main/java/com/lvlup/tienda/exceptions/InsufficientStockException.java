@@ -0,0 +1,20 @@
+package com.lvlup.tienda.exceptions;
+
+import java.util.List;
+
+/**
+ * Se lanza cuando un descuento de stock no se puede aplicar porque no hay unidades suficientes.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<Long> productIds;
+
+    public InsufficientStockException(List<Long> productIds) {
+        super("Stock insuficiente para los productos con ID: " + productIds);
+        this.productIds = productIds;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
@@ -0,0 +1,11 @@
+package com.lvlup.tienda.exceptions;
+
+/**
+ * Se lanza cuando un token de refresco no es válido, expiró o su sesión ya fue revocada.
+ */
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.lvlup.tienda.exceptions;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Se lanza cuando el executor de hashing de contraseñas está saturado y la petición se rechaza
+ * de inmediato en lugar de esperar en cola. Se responde con 503 para que el cliente reintente.
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+    public PasswordHashingRejectedException() {
+        super("El servicio de autenticación está saturado, intente nuevamente en unos segundos");
+    }
+}
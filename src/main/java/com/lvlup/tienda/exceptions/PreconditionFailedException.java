@@ -0,0 +1,11 @@
+package com.lvlup.tienda.exceptions;
+
+/**
+ * Se lanza cuando el If-Match de la petición no coincide con la versión actual del recurso.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,265 @@
+package com.lvlup.tienda.filters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Soporte del header Idempotency-Key para las mutaciones de carritos y órdenes.
+ * La primera petición con una clave se ejecuta y su respuesta se guarda; los reintentos con la misma
+ * clave reciben esa misma respuesta sin volver a tocar la base de datos. Si llega un duplicado mientras
+ * la primera sigue en curso, espera su resultado en lugar de ejecutarse en paralelo.
+ * Junto a la clave se guarda un hash SHA-256 del cuerpo: reutilizar la clave con otro cuerpo responde 422
+ * en lugar de devolver la respuesta de una operación distinta.
+ */
+@Component
+public class IdempotencyKeyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final List<String> PATH_PREFIXES = List.of("/api/v1/carts", "/api/v1/orders");
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+    private static final int SC_UNPROCESSABLE_ENTITY = 422;
+
+    private final Cache<String, Entry> responses;
+    private final ObjectMapper objectMapper;
+    private final long waitMillis;
+
+    public IdempotencyKeyFilter(ObjectMapper objectMapper,
+                                @Value("${idempotency.max-entries:10000}") long maxEntries,
+                                @Value("${idempotency.ttl-seconds:86400}") long ttlSeconds,
+                                @Value("${idempotency.wait-millis:10000}") long waitMillis) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.objectMapper = objectMapper;
+        this.waitMillis = waitMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return PATH_PREFIXES.stream().noneMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "El header Idempotency-Key es inválido");
+            return;
+        }
+
+        // El cuerpo se lee completo para calcular su hash; el controlador lo vuelve a leer desde memoria
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            writeError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "El cuerpo de la solicitud es demasiado grande");
+            return;
+        }
+
+        // La clave se asocia al usuario y a la operación: dos usuarios pueden usar el mismo valor
+        String key = subject() + ' ' + request.getMethod() + ' ' + request.getRequestURI() + ' ' + idempotencyKey;
+        Entry entry = new Entry(sha256(body), new CompletableFuture<>());
+        Entry existing = responses.asMap().putIfAbsent(key, entry);
+        if (existing != null) {
+            if (!MessageDigest.isEqual(existing.fingerprint, entry.fingerprint)) {
+                writeError(response, SC_UNPROCESSABLE_ENTITY, "La Idempotency-Key ya se usó con un cuerpo distinto");
+                return;
+            }
+            replay(existing.response, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new BufferedBodyRequest(request, body), wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            responses.asMap().remove(key, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+
+        StoredResponse stored = StoredResponse.from(wrapper);
+        if (stored.status >= 500) {
+            // Los errores del servidor no se memorizan: un reintento posterior vuelve a ejecutarse
+            responses.asMap().remove(key, entry);
+        }
+        entry.response.complete(stored);
+        wrapper.copyBodyToResponse();
+    }
+
+    private void replay(CompletableFuture<StoredResponse> existing, HttpServletResponse response) throws IOException {
+        StoredResponse stored;
+        try {
+            stored = existing.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeError(response, HttpServletResponse.SC_CONFLICT, "Una solicitud con la misma Idempotency-Key está en proceso");
+            return;
+        } catch (ExecutionException | TimeoutException e) {
+            writeError(response, HttpServletResponse.SC_CONFLICT, "Una solicitud con la misma Idempotency-Key está en proceso");
+            return;
+        }
+
+        response.setStatus(stored.status);
+        stored.headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType != null) {
+            response.setContentType(stored.contentType);
+        }
+        response.setContentLength(stored.body.length);
+        response.getOutputStream().write(stored.body);
+    }
+
+    private String subject() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        Map<String, String> body = new HashMap<>();
+        body.put("error", message);
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.getWriter().write(objectMapper.writeValueAsString(body));
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private record Entry(byte[] fingerprint, CompletableFuture<StoredResponse> response) {
+    }
+
+    // Petición con el cuerpo ya leído, para que el controlador pueda deserializarlo normalmente
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // El cuerpo ya está en memoria: todo está disponible desde el primer momento
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+
+    private static final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+
+        private StoredResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        static StoredResponse from(ContentCachingResponseWrapper wrapper) {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (String name : wrapper.getHeaderNames()) {
+                if (!"Content-Type".equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name)) {
+                    headers.put(name, new ArrayList<>(wrapper.getHeaders(name)));
+                }
+            }
+            return new StoredResponse(wrapper.getStatus(), wrapper.getContentType(), headers, wrapper.getContentAsByteArray());
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.lvlup.tienda.models.carts;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.OptimisticLock;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,12 +22,28 @@ public class Cart {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "user_id", nullable = false)
+    @Column(name = "user_id", nullable = false, unique = true)
     @NotNull(message = "El usuario es obligatorio")
     private Long userId;
 
-    // Relación One-to-Many con CartItems
+    // Total e item_count desnormalizados: solo se escriben con UPDATE relativos en CartRepository
+    // (nunca desde la entidad), así escrituras concurrentes sobre el mismo carrito no se pisan
+    @Column(precision = 12, scale = 2, nullable = false, insertable = false, updatable = false)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Column(name = "item_count", nullable = false, insertable = false, updatable = false)
+    private Integer itemCount = 0;
+
+    // Versión del carrito, expuesta como ETag. La incrementan los mismos UPDATE que ajustan los totales,
+    // así cualquier cambio en los items cambia la versión aunque la fila de carts no se modifique desde JPA
+    @Version
+    @Column(nullable = false)
+    @JsonIgnore
+    private Long version;
+
+    // Relación One-to-Many con CartItems (excluida del control de versión de Hibernate, ver version)
     @JsonManagedReference
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CartItem> cartItems = new ArrayList<>();
 
@@ -42,4 +61,10 @@ public class Cart {
         cartItems.remove(item);
         item.setCart(null);
     }
+
+    // Refleja en memoria un cambio ya aplicado en la BD, para la respuesta de la misma petición
+    public void applyTotalsDelta(BigDecimal totalDelta, int itemCountDelta) {
+        this.total = this.total.add(totalDelta);
+        this.itemCount = this.itemCount + itemCountDelta;
+    }
 }
@@ -8,12 +8,14 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
 @Entity
 @Table(name="users")
+@DynamicUpdate // El UPDATE solo incluye las columnas modificadas
 @Getter
 @Setter
 public class User {
@@ -76,13 +78,19 @@ public class User {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Control de concurrencia optimista: se expone como ETag y no se acepta desde el cliente
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     // Campo transitorio para indicar si es admin durante el registro
     @Transient
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private boolean admin;
 
     // Relación Many-to-Many con roles para Spring Security
-    @JsonIgnoreProperties({"users", "password"})
+    @JsonIgnoreProperties({"users", "password", "hibernateLazyInitializer", "handler"})
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.EAGER)
     @JoinTable(
             name = "users_roles",
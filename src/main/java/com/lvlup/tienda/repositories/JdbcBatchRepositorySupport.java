@@ -0,0 +1,46 @@
+package com.lvlup.tienda.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Base de los fragmentos de repositorio que escriben con JdbcTemplate.
+ * Las tablas usan ids IDENTITY, y con ellos Hibernate no puede agrupar los INSERT en lotes JDBC:
+ * los fragmentos que insertan o actualizan muchas filas a la vez lo hacen por aquí.
+ */
+public abstract class JdbcBatchRepositorySupport {
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ejecuta la sentencia una vez por elemento, en un solo lote. Retorna las filas afectadas por cada elemento.
+     */
+    protected <T> int[] batchUpdate(String sql, Collection<T> rows, Function<T, Object[]> toArgs) {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> args = rows.stream().map(toArgs).toList();
+        return jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    /**
+     * Ejecuta una sentencia cuyo último parámetro es un arreglo de PostgreSQL (ej: "col = ANY (?)"),
+     * para operar sobre muchas filas con una sola sentencia. leadingArgs son los parámetros anteriores.
+     */
+    protected int updateWithArray(String sql, String arrayType, Collection<?> values, Object... leadingArgs) {
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            for (int i = 0; i < leadingArgs.length; i++) {
+                statement.setObject(i + 1, leadingArgs[i]);
+            }
+            statement.setArray(leadingArgs.length + 1, connection.createArrayOf(arrayType, values.toArray()));
+            return statement;
+        });
+    }
+}
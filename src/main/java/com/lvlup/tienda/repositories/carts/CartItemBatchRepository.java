@@ -0,0 +1,24 @@
+package com.lvlup.tienda.repositories.carts;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fragmento de repositorio para la sincronización del carrito por lote.
+ * Las líneas se escriben con INSERT ... ON CONFLICT (que JPA no expresa) y las eliminadas se borran
+ * con un solo DELETE, sin cargar cada CartItem.
+ */
+public interface CartItemBatchRepository {
+
+    /**
+     * Inserta o actualiza la cantidad de cada línea (cart_id, product_id). El precio unitario
+     * solo se fija al insertar: una línea existente conserva el precio con que se agregó.
+     */
+    void upsertBatch(Long cartId, List<ItemWrite> items);
+
+    void deleteByCartIdAndProductIds(Long cartId, Collection<Long> productIds);
+
+    record ItemWrite(Long productId, int quantity, BigDecimal unitPrice) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.lvlup.tienda.repositories.carts;
+
+import com.lvlup.tienda.repositories.JdbcBatchRepositorySupport;
+
+import java.util.Collection;
+import java.util.List;
+
+public class CartItemBatchRepositoryImpl extends JdbcBatchRepositorySupport implements CartItemBatchRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = EXCLUDED.quantity";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ANY (?)";
+
+    @Override
+    public void upsertBatch(Long cartId, List<ItemWrite> items) {
+        batchUpdate(UPSERT_SQL, items, item -> new Object[]{cartId, item.productId(), item.quantity(), item.unitPrice()});
+    }
+
+    @Override
+    public void deleteByCartIdAndProductIds(Long cartId, Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        updateWithArray(DELETE_SQL, "bigint", productIds, cartId);
+    }
+}
@@ -2,8 +2,16 @@ package com.lvlup.tienda.repositories.carts;
 
 import com.lvlup.tienda.models.carts.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+public interface CartItemRepository extends JpaRepository<CartItem, Long>, CartItemBatchRepository {
+
+    // Vacía el carrito con un solo DELETE en lugar de borrar item por item
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM CartItem ci WHERE ci.cartId = :cartId")
+    int deleteByCartId(@Param("cartId") Long cartId);
 }
@@ -0,0 +1,32 @@
+package com.lvlup.tienda.repositories.carts;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila plana carrito-item-producto para armar la vista del carrito en una sola consulta.
+ * Los campos del item y del producto son null si el carrito está vacío.
+ */
+public interface CartItemViewRow {
+
+    Long getCartId();
+
+    Long getItemId();
+
+    Long getProductId();
+
+    Integer getQuantity();
+
+    BigDecimal getUnitPrice();
+
+    String getProductName();
+
+    Integer getProductPrice();
+
+    Integer getProductStock();
+
+    BigDecimal getCartTotal();
+
+    Integer getCartItemCount();
+
+    Long getCartVersion();
+}
@@ -2,12 +2,89 @@ package com.lvlup.tienda.repositories.carts;
 
 import com.lvlup.tienda.models.carts.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
     Optional<Cart> findByUserId(Long userId);
+
+    /**
+     * Crea el carrito del usuario si no existe y retorna su id, en una sola sentencia y sin carreras:
+     * el índice único de user_id resuelve las inserciones concurrentes. Si el carrito lo insertó otra
+     * transacción que confirmó después del inicio de esta sentencia, la rama SELECT no lo ve y retorna null.
+     */
+    @Query(value = "WITH inserted AS (" +
+            "INSERT INTO carts (user_id) VALUES (:userId) ON CONFLICT (user_id) DO NOTHING RETURNING id) " +
+            "SELECT id FROM inserted " +
+            "UNION ALL SELECT id FROM carts WHERE user_id = :userId " +
+            "LIMIT 1", nativeQuery = true)
+    Long upsertIdByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.userId = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT c.total FROM Cart c WHERE c.userId = :userId")
+    Optional<BigDecimal> findTotalByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT c.version FROM Cart c WHERE c.userId = :userId")
+    Optional<Long> findVersionByUserId(@Param("userId") Long userId);
+
+    /**
+     * Ajusta total e item_count de forma relativa y atómica (dos escrituras concurrentes suman sus deltas)
+     * e incrementa la versión. Con expectedVersion (If-Match) solo se aplica si la versión coincide:
+     * retorna la nueva versión, o null si no coincidió.
+     */
+    @Query(value = "UPDATE carts SET total = total + :totalDelta, item_count = item_count + :itemCountDelta, " +
+            "version = version + 1 " +
+            "WHERE id = :id AND version = COALESCE(CAST(:expectedVersion AS BIGINT), version) " +
+            "RETURNING version", nativeQuery = true)
+    Long adjustTotals(@Param("id") Long id, @Param("totalDelta") BigDecimal totalDelta,
+                      @Param("itemCountDelta") int itemCountDelta, @Param("expectedVersion") Long expectedVersion);
+
+    @Query(value = "UPDATE carts SET total = 0, item_count = 0, version = version + 1 " +
+            "WHERE id = :id AND version = COALESCE(CAST(:expectedVersion AS BIGINT), version) " +
+            "RETURNING version", nativeQuery = true)
+    Long resetTotals(@Param("id") Long id, @Param("expectedVersion") Long expectedVersion);
+
+    // --- Verificación de consistencia de los totales desnormalizados ---
+
+    @Query(value = "SELECT c.id FROM carts c " +
+            "LEFT JOIN (SELECT cart_id, SUM(quantity * unit_price) AS total, COUNT(*) AS item_count " +
+            "FROM cart_items GROUP BY cart_id) s ON s.cart_id = c.id " +
+            "WHERE c.total <> COALESCE(s.total, 0) OR c.item_count <> COALESCE(s.item_count, 0) " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Long> findIdsWithInconsistentTotals(@Param("limit") int limit);
+
+    @Query(value = "SELECT id FROM carts WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE carts SET version = version + 1, " +
+            "total = (SELECT COALESCE(SUM(ci.quantity * ci.unit_price), 0) FROM cart_items ci WHERE ci.cart_id = :id), " +
+            "item_count = (SELECT COUNT(*) FROM cart_items ci WHERE ci.cart_id = :id) " +
+            "WHERE id = :id", nativeQuery = true)
+    int recomputeTotals(@Param("id") Long id);
+
+    // Carga el carrito y sus items en una sola consulta
+    @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.cartItems WHERE c.userId = :userId")
+    Optional<Cart> findWithItemsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Carrito, items y datos actuales de cada producto en una sola sentencia (una fila por item).
+     * Retorna una lista vacía si el usuario no tiene carrito.
+     */
+    @Query("SELECT c.id AS cartId, ci.id AS itemId, ci.productId AS productId, ci.quantity AS quantity, " +
+            "ci.unitPrice AS unitPrice, p.nombre AS productName, p.precio AS productPrice, p.stock AS productStock, " +
+            "c.total AS cartTotal, c.itemCount AS cartItemCount, c.version AS cartVersion " +
+            "FROM Cart c LEFT JOIN c.cartItems ci LEFT JOIN Product p ON p.id = ci.productId " +
+            "WHERE c.userId = :userId ORDER BY ci.id")
+    List<CartItemViewRow> findViewRowsByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,14 @@
+package com.lvlup.tienda.repositories.orders;
+
+import com.lvlup.tienda.models.orders.OrderItem;
+
+import java.util.List;
+
+/**
+ * Fragmento de repositorio para insertar los items de una orden.
+ * El checkout escribe todas las líneas de la orden juntas, en un solo lote en lugar de un INSERT por línea.
+ */
+public interface OrderItemBatchRepository {
+
+    void insertBatch(Long orderId, List<OrderItem> items);
+}
@@ -0,0 +1,18 @@
+package com.lvlup.tienda.repositories.orders;
+
+import com.lvlup.tienda.models.orders.OrderItem;
+import com.lvlup.tienda.repositories.JdbcBatchRepositorySupport;
+
+import java.util.List;
+
+public class OrderItemBatchRepositoryImpl extends JdbcBatchRepositorySupport implements OrderItemBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_items (order_id, product_id, product_name, quantity, unit_price) VALUES (?, ?, ?, ?, ?)";
+
+    @Override
+    public void insertBatch(Long orderId, List<OrderItem> items) {
+        batchUpdate(INSERT_SQL, items, item ->
+                new Object[]{orderId, item.getProductId(), item.getProductName(), item.getQuantity(), item.getUnitPrice()});
+    }
+}
@@ -0,0 +1,11 @@
+package com.lvlup.tienda.repositories.products;
+
+/**
+ * Proyección liviana de un producto: solo id y nombre, sin descripción ni imagen.
+ */
+public interface ProductNameView {
+
+    Long getId();
+
+    String getNombre();
+}
@@ -1,15 +1,45 @@
 package com.lvlup.tienda.repositories.products;
 
 import com.lvlup.tienda.models.products.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository {
 
     List<Product> findByCategoria(String categoria);
 
     List<Product> findByNombreContainingIgnoreCase(String nombre);
+
+    @Query("SELECT p.id AS id, p.nombre AS nombre FROM Product p")
+    List<ProductNameView> findAllNames();
+
+    // --- Paginación por keyset (el Pageable solo aporta el LIMIT, siempre página 0) ---
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Product> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    List<Product> findByCategoriaAndIdGreaterThanOrderByIdAsc(String categoria, Long id, Pageable pageable);
+
+    List<Product> findByCategoriaAndIdLessThanOrderByIdDesc(String categoria, Long id, Pageable pageable);
+
+    List<Product> findAllByOrderByCategoriaAscIdAsc(Pageable pageable);
+
+    List<Product> findAllByOrderByCategoriaDescIdDesc(Pageable pageable);
+
+    // Comparación de filas (categoria, id) > (?, ?): PostgreSQL la resuelve con un solo rango sobre
+    // idx_products_categoria_id, así el costo no crece con la profundidad de la página (la forma con OR no lo permite)
+    @Query(value = "SELECT * FROM products WHERE (categoria, id) > (:categoria, :id) " +
+            "ORDER BY categoria ASC, id ASC", nativeQuery = true)
+    List<Product> findPageAfterCategoriaAsc(@Param("categoria") String categoria, @Param("id") Long id, Pageable pageable);
+
+    @Query(value = "SELECT * FROM products WHERE (categoria, id) < (:categoria, :id) " +
+            "ORDER BY categoria DESC, id DESC", nativeQuery = true)
+    List<Product> findPageAfterCategoriaDesc(@Param("categoria") String categoria, @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,20 @@
+package com.lvlup.tienda.repositories.products;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Fragmento de repositorio para operaciones de stock que se ejecutan en una sola sentencia JDBC.
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Descuenta el stock de varios productos con un único UPDATE condicional y retorna, de las filas descontadas,
+     * el nombre y el precio vigentes en ese mismo instante. Un id que no aparece en el resultado no existe
+     * o no tenía stock suficiente (esas filas no se modifican).
+     */
+    List<DecrementedStock> decrementStockBatch(SortedMap<Long, Integer> quantitiesByProductId);
+
+    record DecrementedStock(Long productId, String nombre, Integer precio) {
+    }
+}
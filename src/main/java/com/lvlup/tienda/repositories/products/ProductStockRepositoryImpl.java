@@ -0,0 +1,34 @@
+package com.lvlup.tienda.repositories.products;
+
+import com.lvlup.tienda.repositories.JdbcBatchRepositorySupport;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.SortedMap;
+
+public class ProductStockRepositoryImpl extends JdbcBatchRepositorySupport implements ProductStockRepository {
+
+    // El CTE bloquea las filas ordenadas por id antes del UPDATE: todas las transacciones las bloquean
+    // en el mismo orden. RETURNING entrega el precio de la fila ya bloqueada, el mismo que se cobra.
+    private static final String DECREMENT_SQL =
+            "WITH requested AS (SELECT * FROM unnest(?::bigint[], ?::int[]) AS r(id, quantity)), " +
+            "locked AS MATERIALIZED (SELECT p.id FROM products p JOIN requested r ON r.id = p.id " +
+            "ORDER BY p.id FOR UPDATE OF p) " +
+            "UPDATE products p SET stock = p.stock - r.quantity, updated_at = now(), version = p.version + 1 " +
+            "FROM requested r JOIN locked l ON l.id = r.id " +
+            "WHERE p.id = r.id AND p.stock >= r.quantity " +
+            "RETURNING p.id, p.nombre, p.precio";
+
+    @Override
+    public List<DecrementedStock> decrementStockBatch(SortedMap<Long, Integer> quantitiesByProductId) {
+        if (quantitiesByProductId.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DECREMENT_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", quantitiesByProductId.keySet().toArray()));
+            statement.setArray(2, connection.createArrayOf("integer", quantitiesByProductId.values().toArray()));
+            return statement;
+        }, (rs, rowNum) -> new DecrementedStock(rs.getLong("id"), rs.getString("nombre"), rs.getInt("precio")));
+    }
+}
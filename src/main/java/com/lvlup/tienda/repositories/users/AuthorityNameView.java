@@ -0,0 +1,11 @@
+package com.lvlup.tienda.repositories.users;
+
+/**
+ * Proyección liviana de un rol o permiso: solo id y nombre.
+ */
+public interface AuthorityNameView {
+
+    Long getId();
+
+    String getName();
+}
@@ -0,0 +1,15 @@
+package com.lvlup.tienda.repositories.users;
+
+import com.lvlup.tienda.models.users.Permission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PermissionRepository extends JpaRepository<Permission, Long> {
+
+    @Query("SELECT p.id AS id, p.name AS name FROM Permission p")
+    List<AuthorityNameView> findAllNames();
+}
@@ -0,0 +1,11 @@
+package com.lvlup.tienda.repositories.users;
+
+/**
+ * Fila plana rol-permiso de la tabla roles_permisos.
+ */
+public interface RolePermissionRow {
+
+    Long getRoleId();
+
+    Long getPermissionId();
+}
@@ -2,12 +2,20 @@ package com.lvlup.tienda.repositories.users;
 
 import com.lvlup.tienda.models.users.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
 
     Optional<Role> findByName(String name);
+
+    @Query("SELECT r.id AS id, r.name AS name FROM Role r")
+    List<AuthorityNameView> findAllNames();
+
+    @Query("SELECT r.id AS roleId, p.id AS permissionId FROM Role r JOIN r.permissions p")
+    List<RolePermissionRow> findAllRolePermissions();
 }
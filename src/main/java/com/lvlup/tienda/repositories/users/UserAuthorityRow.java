@@ -0,0 +1,16 @@
+package com.lvlup.tienda.repositories.users;
+
+/**
+ * Fila plana usuario-rol para cargar las credenciales en una sola consulta.
+ * roleId es null si el usuario no tiene roles; los permisos de cada rol los resuelve RolePermissionRegistry.
+ */
+public interface UserAuthorityRow {
+
+    Long getId();
+
+    String getCorreo();
+
+    String getContrasena();
+
+    Long getRoleId();
+}
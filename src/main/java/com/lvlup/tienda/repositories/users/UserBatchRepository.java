@@ -0,0 +1,22 @@
+package com.lvlup.tienda.repositories.users;
+
+import com.lvlup.tienda.models.users.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fragmento de repositorio para la importación masiva de usuarios.
+ * Los usuarios del bloque se insertan sin pasar por el contexto de persistencia, así la memoria de la
+ * importación no crece con el tamaño del archivo.
+ */
+public interface UserBatchRepository {
+
+    void insertBatch(List<User> users);
+
+    /**
+     * Asigna en users_roles el rol que corresponde al campo rol de cada usuario (ADMIN -> ROLE_ADMIN, ...)
+     * con una sola sentencia para todos los correos.
+     */
+    int assignRolesByCorreo(Collection<String> correos);
+}
@@ -0,0 +1,32 @@
+package com.lvlup.tienda.repositories.users;
+
+import com.lvlup.tienda.models.users.User;
+import com.lvlup.tienda.repositories.JdbcBatchRepositorySupport;
+
+import java.util.Collection;
+import java.util.List;
+
+public class UserBatchRepositoryImpl extends JdbcBatchRepositorySupport implements UserBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO users (nombre, apellido, correo, contrasena, rut, direccion, telefono, region, comuna, " +
+            "fecha_nacimiento, rol, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now(), now())";
+
+    private static final String ASSIGN_ROLES_SQL =
+            "INSERT INTO users_roles (user_id, role_id) " +
+            "SELECT u.id, r.id FROM users u JOIN roles r ON r.name = 'ROLE_' || UPPER(u.rol) " +
+            "WHERE u.correo = ANY (?) " +
+            "ON CONFLICT DO NOTHING";
+
+    @Override
+    public void insertBatch(List<User> users) {
+        batchUpdate(INSERT_SQL, users, user -> new Object[]{user.getNombre(), user.getApellido(), user.getCorreo(),
+                user.getContrasena(), user.getRut(), user.getDireccion(), user.getTelefono(), user.getRegion(),
+                user.getComuna(), user.getFechaNacimiento(), user.getRol()});
+    }
+
+    @Override
+    public int assignRolesByCorreo(Collection<String> correos) {
+        return updateWithArray(ASSIGN_ROLES_SQL, "varchar", correos);
+    }
+}
@@ -0,0 +1,11 @@
+package com.lvlup.tienda.repositories.users;
+
+/**
+ * Proyección con los identificadores únicos de un usuario (correo y rut), para precargar el índice de disponibilidad.
+ */
+public interface UserIdentifierView {
+
+    String getCorreo();
+
+    String getRut();
+}
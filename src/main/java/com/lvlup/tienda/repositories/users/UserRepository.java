@@ -2,16 +2,51 @@ package com.lvlup.tienda.repositories.users;
 
 import com.lvlup.tienda.models.users.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserBatchRepository, UserSummaryRepository {
 
     Optional<User> findByCorreo(String correo);
 
+    /**
+     * Credenciales e ids de rol del usuario en una sola sentencia (una fila por rol),
+     * sin pasar por las colecciones EAGER de User y Role.
+     */
+    @Query("SELECT u.id AS id, u.correo AS correo, u.contrasena AS contrasena, r.id AS roleId " +
+            "FROM User u LEFT JOIN u.roles r " +
+            "WHERE u.correo = :correo")
+    List<UserAuthorityRow> findAuthorityRowsByCorreo(@Param("correo") String correo);
+
+    @Modifying
+    @Query("UPDATE User u SET u.contrasena = :contrasena, u.updatedAt = CURRENT_TIMESTAMP, u.version = u.version + 1 " +
+            "WHERE u.id = :id")
+    int updateContrasena(@Param("id") Long id, @Param("contrasena") String contrasena);
+
     boolean existsByCorreo(String correo);
 
     boolean existsByRut(String rut);
+
+    @Query("SELECT u.correo AS correo, u.rut AS rut FROM User u")
+    List<UserIdentifierView> findAllIdentifiers();
+
+    @Query("SELECT u.correo AS correo, u.rut AS rut FROM User u WHERE u.updatedAt >= :since")
+    List<UserIdentifierView> findIdentifiersUpdatedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT u.correo FROM User u WHERE u.correo IN :correos")
+    List<String> findExistingCorreos(@Param("correos") Collection<String> correos);
+
+    @Query("SELECT u.rut FROM User u WHERE u.rut IN :ruts")
+    List<String> findExistingRuts(@Param("ruts") Collection<String> ruts);
+
+    @Query("SELECT u.id AS userId, r.name AS roleName FROM User u JOIN u.roles r WHERE u.id IN :ids")
+    List<UserRoleRow> findRoleNamesByUserIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,11 @@
+package com.lvlup.tienda.repositories.users;
+
+/**
+ * Par usuario-rol para completar los roles de una página de usuarios en una sola consulta.
+ */
+public interface UserRoleRow {
+
+    Long getUserId();
+
+    String getRoleName();
+}
@@ -0,0 +1,18 @@
+package com.lvlup.tienda.repositories.users;
+
+import com.lvlup.tienda.dtos.UserSummaryDto;
+
+import java.util.List;
+
+/**
+ * Fragmento de repositorio para el listado de administración paginado por keyset.
+ * La consulta solo lleva los filtros recibidos, así PostgreSQL planifica cada combinación por separado
+ * y usa el índice compuesto que le corresponde (create_user_indexes.sql).
+ */
+public interface UserSummaryRepository {
+
+    /**
+     * Usuarios con id mayor que afterId en orden de id. Un filtro null no restringe.
+     */
+    List<UserSummaryDto> findSummaryPage(long afterId, String rol, String region, String comuna, int limit);
+}
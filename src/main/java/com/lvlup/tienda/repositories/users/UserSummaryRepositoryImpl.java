@@ -0,0 +1,46 @@
+package com.lvlup.tienda.repositories.users;
+
+import com.lvlup.tienda.dtos.UserSummaryDto;
+import com.lvlup.tienda.models.users.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserSummaryRepositoryImpl implements UserSummaryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserSummaryDto> findSummaryPage(long afterId, String rol, String region, String comuna, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSummaryDto> query = cb.createQuery(UserSummaryDto.class);
+        Root<User> u = query.from(User.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(u.get("id"), afterId));
+        if (rol != null) {
+            predicates.add(cb.equal(u.get("rol"), rol));
+        }
+        if (region != null) {
+            predicates.add(cb.equal(u.get("region"), region));
+        }
+        if (comuna != null) {
+            predicates.add(cb.equal(u.get("comuna"), comuna));
+        }
+
+        query.select(cb.construct(UserSummaryDto.class, u.get("id"), u.get("nombre"), u.get("apellido"),
+                        u.get("correo"), u.get("rut"), u.get("telefono"), u.get("region"), u.get("comuna"),
+                        u.get("rol"), u.get("createdAt")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(u.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,24 @@
+package com.lvlup.tienda.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * UserDetails que además conserva el id del usuario, para poder incluirlo en el token JWT al hacer login.
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+
+    public AuthenticatedUser(Long id, String correo, String contrasena,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(correo, contrasena, true, true, true, true, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,104 @@
+package com.lvlup.tienda.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Llaves HMAC para firmar y verificar los tokens JWT, compartidas por todas las instancias.
+ * Se configuran como pares "kid:llaveBase64" en jwt.keys y/o en el archivo jwt.keys-file (uno por línea).
+ * Los tokens se firman con la llave jwt.signing-kid y llevan su kid en el header; la verificación busca
+ * la llave por kid en un mapa, así que para rotar se agrega la llave nueva, se cambia signing-kid y la
+ * anterior se quita cuando expiran sus tokens.
+ * Sin llaves configuradas se genera una aleatoria: solo sirve para desarrollo con una sola instancia.
+ */
+@Component
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private final Map<String, SecretKey> keys;
+    private final String signingKid;
+
+    public JwtKeyRing(@Value("${jwt.keys:}") String inlineKeys,
+                      @Value("${jwt.keys-file:}") String keysFile,
+                      @Value("${jwt.signing-kid:}") String signingKid) {
+        List<String> entries = new ArrayList<>(List.of(inlineKeys.split("[,\\s]+")));
+        if (!keysFile.isBlank()) {
+            try {
+                entries.addAll(Files.readAllLines(Path.of(keysFile)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el archivo de llaves JWT: " + keysFile, e);
+            }
+        }
+
+        Map<String, SecretKey> loaded = new HashMap<>();
+        String firstKid = null;
+        for (String entry : entries) {
+            String line = entry.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int separator = line.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalStateException("Llave JWT inválida, se espera kid:llaveBase64");
+            }
+            String kid = line.substring(0, separator);
+            // hmacShaKeyFor rechaza llaves de menos de 256 bits
+            loaded.put(kid, Keys.hmacShaKeyFor(Decoders.BASE64.decode(line.substring(separator + 1))));
+            if (firstKid == null) {
+                firstKid = kid;
+            }
+        }
+
+        if (loaded.isEmpty()) {
+            log.warn("No hay llaves JWT configuradas (jwt.keys / jwt.keys-file): se usa una llave aleatoria "
+                    + "y los tokens no serán válidos en otras instancias ni tras reiniciar");
+            firstKid = "local-" + UUID.randomUUID();
+            loaded.put(firstKid, Jwts.SIG.HS256.key().build());
+        }
+
+        this.signingKid = signingKid.isBlank() ? firstKid : signingKid;
+        if (!loaded.containsKey(this.signingKid)) {
+            throw new IllegalStateException("jwt.signing-kid no corresponde a ninguna llave: " + this.signingKid);
+        }
+        this.keys = Map.copyOf(loaded);
+    }
+
+    public String signingKid() {
+        return signingKid;
+    }
+
+    public SecretKey signingKey() {
+        return keys.get(signingKid);
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        SecretKey key = kid != null ? keys.get(kid) : null;
+        if (key == null) {
+            throw new UnsupportedJwtException("El token fue firmado con una llave desconocida");
+        }
+        return key;
+    }
+}
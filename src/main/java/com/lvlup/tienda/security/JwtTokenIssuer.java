@@ -0,0 +1,84 @@
+package com.lvlup.tienda.security;
+
+import com.lvlup.tienda.services.users.RolePermissionRegistry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Emite los tokens JWT firmados con la llave activa del JwtKeyRing.
+ * Cada login abre una sesión: un token de refresco de larga duración cuyo jti identifica la sesión,
+ * y tokens de acceso cortos que llevan ese id en el claim "sid" para poder revocarlos junto con ella.
+ */
+@Component
+public class JwtTokenIssuer {
+
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Autowired
+    private RolePermissionRegistry rolePermissionRegistry;
+
+    @Value("${jwt.access-token-minutes:15}")
+    private long accessTokenMinutes;
+
+    @Value("${jwt.refresh-token-days:7}")
+    private long refreshTokenDays;
+
+    /**
+     * Abre una sesión nueva y retorna su par de tokens.
+     */
+    public TokenPair issueSession(Long userId, String correo, Collection<? extends GrantedAuthority> authorities) {
+        String sessionId = UUID.randomUUID().toString();
+        return new TokenPair(
+                issueAccessToken(userId, correo, authorities, sessionId),
+                issueRefreshToken(userId, correo, sessionId)
+        );
+    }
+
+    private String issueAccessToken(Long userId, String correo, Collection<? extends GrantedAuthority> authorities,
+                                    String sessionId) {
+        // Roles y permisos como máscaras de bits (ver RolePermissionRegistry) en lugar de una lista JSON
+        Claims claims = Jwts.claims()
+                .add("auth", rolePermissionRegistry.encode(authorities))
+                .add("username", correo)
+                .add("userId", userId)
+                .add("sid", sessionId)
+                .build();
+
+        return Jwts.builder()
+                .header().keyId(keyRing.signingKid()).and()
+                .subject(correo)
+                .claims(claims)
+                .expiration(new Date(System.currentTimeMillis() + accessTokenMinutes * 60_000))
+                .issuedAt(new Date())
+                .signWith(keyRing.signingKey())
+                .compact();
+    }
+
+    // Sin authorities: al refrescar se vuelven a cargar, así un cambio de rol se aplica en el siguiente refresco
+    private String issueRefreshToken(Long userId, String correo, String sessionId) {
+        return Jwts.builder()
+                .header().keyId(keyRing.signingKid()).and()
+                .id(sessionId)
+                .subject(correo)
+                .claim("userId", userId)
+                .claim("typ", REFRESH_TOKEN_TYPE)
+                .expiration(new Date(System.currentTimeMillis() + refreshTokenDays * 86_400_000))
+                .issuedAt(new Date())
+                .signWith(keyRing.signingKey())
+                .compact();
+    }
+
+    public record TokenPair(String accessToken, String refreshToken) {
+    }
+}
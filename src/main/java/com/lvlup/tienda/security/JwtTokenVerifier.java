@@ -0,0 +1,145 @@
+package com.lvlup.tienda.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.lvlup.tienda.services.users.RolePermissionRegistry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Verificación de tokens JWT compartida por todas las peticiones.
+ * El parser se crea una sola vez (es thread-safe) y cada token ya verificado se guarda con su principal
+ * y sus authorities hasta que expira, de modo que las peticiones siguientes con el mismo token no vuelven
+ * a validar la firma ni a decodificar el claim "auth".
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private final JwtParser parser;
+
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    private final RolePermissionRegistry rolePermissionRegistry;
+
+    private final Clock clock;
+
+    @Autowired
+    public JwtTokenVerifier(MeterRegistry meterRegistry, RolePermissionRegistry rolePermissionRegistry,
+                            JwtKeyRing keyRing,
+                            @Value("${jwt.verified-cache.max-size:10000}") long maxSize) {
+        this(meterRegistry, rolePermissionRegistry, keyRing, maxSize, Clock.systemUTC(), Ticker.systemTicker());
+    }
+
+    // Las pruebas pasan un reloj y un ticker propios para avanzar el tiempo sin esperar
+    JwtTokenVerifier(MeterRegistry meterRegistry, RolePermissionRegistry rolePermissionRegistry, JwtKeyRing keyRing,
+                     long maxSize, Clock clock, Ticker ticker) {
+        // La llave se elige por el kid del header (ver JwtKeyRing)
+        this.parser = Jwts.parser().keyLocator(keyRing).clock(() -> new Date(clock.millis())).build();
+        this.rolePermissionRegistry = rolePermissionRegistry;
+        this.clock = clock;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .ticker(ticker)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        // La entrada vive exactamente hasta la expiración del token
+                        return Math.max(0, verified.expiresAtMillis() - clock.millis()) * 1_000_000;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(token, verified, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified");
+    }
+
+    /**
+     * Retorna el principal y las authorities del token, o lanza JwtException si no es válido.
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && cached.expiresAtMillis() > clock.millis()) {
+            return cached;
+        }
+
+        Claims claims = parse(token);
+        if (JwtTokenIssuer.REFRESH_TOKEN_TYPE.equals(claims.get("typ"))) {
+            throw new JwtException("El token de refresco no sirve como token de acceso");
+        }
+
+        Object userIdClaim = claims.get("userId");
+        Long userId = userIdClaim instanceof Number number ? number.longValue() : null;
+        String authClaim = claims.get("auth", String.class);
+        if (authClaim == null) {
+            throw new JwtException("El token no contiene authorities");
+        }
+
+        VerifiedToken verified = new VerifiedToken(
+                new UserPrincipal(userId, claims.getSubject()),
+                decodeAuthorities(authClaim),
+                claims.get("sid", String.class),
+                claims.getExpiration().getTime()
+        );
+        verifiedTokens.put(token, verified);
+        return verified;
+    }
+
+    /**
+     * Valida un token de refresco (sin caché: se usa una vez por refresco).
+     */
+    public RefreshToken verifyRefresh(String token) {
+        Claims claims = parse(token);
+        if (!JwtTokenIssuer.REFRESH_TOKEN_TYPE.equals(claims.get("typ")) || claims.getId() == null) {
+            throw new JwtException("El token no es un token de refresco");
+        }
+        return new RefreshToken(claims.getSubject(), claims.getId(), claims.getExpiration());
+    }
+
+    private Claims parse(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("El token no tiene fecha de expiración");
+        }
+        return claims;
+    }
+
+    private List<GrantedAuthority> decodeAuthorities(String encoded) {
+        try {
+            return rolePermissionRegistry.decode(encoded);
+        } catch (IllegalArgumentException e) {
+            throw new JwtException("El claim auth no es válido", e);
+        }
+    }
+
+    public record VerifiedToken(UserPrincipal principal, List<GrantedAuthority> authorities, String sessionId,
+                                long expiresAtMillis) {
+    }
+
+    public record RefreshToken(String correo, String sessionId, Date expiration) {
+    }
+}
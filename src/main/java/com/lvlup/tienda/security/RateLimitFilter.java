@@ -0,0 +1,176 @@
+package com.lvlup.tienda.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.lvlup.tienda.security.TokenJwtConfig.*;
+
+/**
+ * Límite de peticiones por cliente para las rutas públicas costosas: /login (BCrypt),
+ * /api/v1/users/register (BCrypt + inserción), /api/v1/products/search y /api/v1/users/availability.
+ * Cada cliente (usuario del token si viene uno válido, si no la IP) tiene un token bucket por ruta,
+ * implementado como GCRA: un solo AtomicLong con el "tiempo teórico de llegada" que se avanza con CAS,
+ * sin bloqueos. Los buckets viven en un mapa acotado y se descartan tras un tiempo sin uso.
+ * Se registra en la cadena de Spring Security (ver SpringSecurityConfig), no como filtro del servlet.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<Route> routes;
+    private final Cache<String, AtomicLong> buckets;
+    private final JwtTokenVerifier jwtTokenVerifier;
+    private final boolean enabled;
+    private final Ticker ticker;
+
+    @Autowired
+    public RateLimitFilter(JwtTokenVerifier jwtTokenVerifier, MeterRegistry meterRegistry,
+                           @Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.max-clients:100000}") long maxClients,
+                           @Value("${rate-limit.idle-minutes:10}") long idleMinutes,
+                           @Value("${rate-limit.login.capacity:10}") int loginCapacity,
+                           @Value("${rate-limit.login.per-minute:10}") int loginPerMinute,
+                           @Value("${rate-limit.register.capacity:5}") int registerCapacity,
+                           @Value("${rate-limit.register.per-minute:5}") int registerPerMinute,
+                           @Value("${rate-limit.search.capacity:30}") int searchCapacity,
+                           @Value("${rate-limit.search.per-minute:120}") int searchPerMinute,
+                           @Value("${rate-limit.availability.capacity:30}") int availabilityCapacity,
+                           @Value("${rate-limit.availability.per-minute:120}") int availabilityPerMinute) {
+        this(jwtTokenVerifier, meterRegistry, enabled, maxClients, idleMinutes, loginCapacity, loginPerMinute,
+                registerCapacity, registerPerMinute, searchCapacity, searchPerMinute, availabilityCapacity,
+                availabilityPerMinute, Ticker.systemTicker());
+    }
+
+    // Las pruebas pasan un ticker propio para avanzar el tiempo sin esperar
+    RateLimitFilter(JwtTokenVerifier jwtTokenVerifier, MeterRegistry meterRegistry, boolean enabled, long maxClients,
+                    long idleMinutes, int loginCapacity, int loginPerMinute, int registerCapacity, int registerPerMinute,
+                    int searchCapacity, int searchPerMinute, int availabilityCapacity, int availabilityPerMinute,
+                    Ticker ticker) {
+        this.jwtTokenVerifier = jwtTokenVerifier;
+        this.enabled = enabled;
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .ticker(ticker)
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+        this.routes = List.of(
+                new Route("login", "POST", "/login", loginCapacity, loginPerMinute, meterRegistry),
+                new Route("register", "POST", "/api/v1/users/register", registerCapacity, registerPerMinute, meterRegistry),
+                new Route("search", "GET", "/api/v1/products/search", searchCapacity, searchPerMinute, meterRegistry),
+                new Route("availability", "GET", "/api/v1/users/availability", availabilityCapacity,
+                        availabilityPerMinute, meterRegistry)
+        );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || route(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        Route route = route(request);
+        long waitNanos = route.tryAcquire(buckets, route.name + ' ' + client(request), ticker.read());
+        if (waitNanos == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        route.rejected.increment();
+        Map<String, String> body = new HashMap<>();
+        body.put("message", "Demasiadas solicitudes");
+        body.put("error", "Se superó el límite de solicitudes, intente nuevamente más tarde");
+
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+        response.setStatus(429);
+        response.setContentType(CONTENT_TYPE);
+        response.getWriter().write(MAPPER.writeValueAsString(body));
+    }
+
+    private Route route(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (route.path.equals(path) && route.method.equals(request.getMethod())) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // Usuario del token si es válido (la verificación sale de la caché de JwtTokenVerifier), si no la IP
+    private String client(HttpServletRequest request) {
+        String header = request.getHeader(HEADER_STRING);
+        if (header != null && header.startsWith(JWT_TOKEN_PREFIX)) {
+            try {
+                return "sub:" + jwtTokenVerifier.verify(header.substring(JWT_TOKEN_PREFIX.length())).principal().getName();
+            } catch (JwtException | IllegalArgumentException e) {
+                // Token inválido o vacío ("Bearer "): JwtValidationFilter lo rechazará; aquí se limita por IP
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static final class Route {
+        final String name;
+        final String method;
+        final String path;
+        final long intervalNanos;
+        final long burstNanos;
+        final Counter rejected;
+
+        Route(String name, String method, String path, int capacity, int perMinute, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.method = method;
+            this.path = path;
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.burstNanos = intervalNanos * Math.max(1, capacity);
+            this.rejected = Counter.builder("rate_limit.rejected")
+                    .tag("route", name)
+                    .description("Peticiones rechazadas por límite de frecuencia")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Retorna 0 si la petición se acepta, o los nanosegundos a esperar hasta que haya cupo.
+         */
+        long tryAcquire(Cache<String, AtomicLong> buckets, String key, long now) {
+            AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(now));
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = (current - now > 0 ? current : now) + intervalNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
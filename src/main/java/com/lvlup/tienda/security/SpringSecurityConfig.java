@@ -1,19 +1,24 @@
 package com.lvlup.tienda.security;
 
+import com.lvlup.tienda.filters.IdempotencyKeyFilter;
 import com.lvlup.tienda.security.filter.JwtAuthenticationFilter;
 import com.lvlup.tienda.security.filter.JwtValidationFilter;
+import com.lvlup.tienda.services.tokens.TokenRevocationService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity; // <--- IMPORTANTE
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -27,9 +32,25 @@ public class SpringSecurityConfig {
     @Autowired
     private AuthenticationConfiguration authenticationConfiguration;
 
-    @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+
+    @Autowired
+    private JwtTokenIssuer jwtTokenIssuer;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // BCrypt en un pool acotado (ver BoundedPasswordEncoder); el costo se ajusta con security.password.bcrypt-strength
+    @Bean(destroyMethod = "shutdown")
+    BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${security.password.threads:0}") int threads,
+                                           @Value("${security.password.queue-capacity:64}") int queueCapacity) {
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, meterRegistry);
     }
 
     @Bean
@@ -44,16 +65,23 @@ SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
             // --- RUTAS PÚBLICAS ---
             // Registro y Login
             .requestMatchers(HttpMethod.POST, "/api/v1/users/register").permitAll()
+            .requestMatchers(HttpMethod.GET, "/api/v1/users/availability").permitAll()
             .requestMatchers(HttpMethod.POST, "/login").permitAll()
+            // Refresco y revocación se autentican con el token de refresco del body
+            .requestMatchers(HttpMethod.POST, "/token/refresh", "/token/revoke").permitAll()
             // Documentación Swagger/OpenAPI
             .requestMatchers("/", "/swagger-ui/**", "/swagger-ui.html", "/api-docs/**", "/v3/api-docs/**").permitAll()
+            // Actuator: health público, métricas solo para administradores
+            .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+            .requestMatchers("/actuator/**").hasRole("ADMIN")
             
             // NUEVO: Productos públicos (Ver lista y detalle)
             .requestMatchers(HttpMethod.GET, "/api/v1/products/**").permitAll()
 
             // --- RUTAS PROTEGIDAS (PRODUCTOS) ---
-            // Permitir que usuarios autenticados actualicen stock (para checkout)
+            // La edición de productos se controla con @PreAuthorize("hasAuthority('PRODUCT_UPDATE')")
             .requestMatchers(HttpMethod.PUT, "/api/v1/products/{id}").authenticated()
+            .requestMatchers(HttpMethod.PATCH, "/api/v1/products/{id}").authenticated()
             .requestMatchers(HttpMethod.POST, "/api/v1/products").hasRole("ADMIN")
             .requestMatchers(HttpMethod.DELETE, "/api/v1/products/{id}").hasRole("ADMIN")
 
@@ -64,18 +92,25 @@ SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
             
             // Acciones de escritura sobre usuarios
             .requestMatchers(HttpMethod.POST, "/api/v1/users").hasRole("ADMIN")
+            .requestMatchers(HttpMethod.POST, "/api/v1/users/import").hasRole("ADMIN")
+            .requestMatchers(HttpMethod.POST, "/api/v1/users/roles/refresh").hasRole("ADMIN")
             .requestMatchers(HttpMethod.PUT, "/api/v1/users/{id}").hasAnyRole("ADMIN", "CLIENTE")
+            .requestMatchers(HttpMethod.PATCH, "/api/v1/users/{id}").hasAnyRole("ADMIN", "CLIENTE")
             .requestMatchers(HttpMethod.DELETE, "/api/v1/users/{id}").hasRole("ADMIN")
 
             // --- RUTAS PROTEGIDAS (CARRITOS) ---
             // Todos los usuarios autenticados pueden acceder a su propio carrito
             .requestMatchers("/api/v1/carts/**").hasAnyRole("ADMIN", "VENDEDOR", "CLIENTE")
 
+            // --- RUTAS PROTEGIDAS (ÓRDENES) ---
+            .requestMatchers("/api/v1/orders/**").hasAnyRole("ADMIN", "VENDEDOR", "CLIENTE")
+
             // --- REGLAS GLOBALES ---
             .anyRequest().authenticated();
     })
-                .addFilter(new JwtAuthenticationFilter(authenticationManager()))
-                .addFilter(new JwtValidationFilter(authenticationManager()))
+                .addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilter(new JwtAuthenticationFilter(authenticationManager(), jwtTokenIssuer))
+                .addFilter(new JwtValidationFilter(authenticationManager(), jwtTokenVerifier, tokenRevocationService))
                 .csrf(config -> config.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(management ->
@@ -84,14 +119,23 @@ SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
                 .build();
     }
 
+    // RateLimitFilter es un @Component solo para inyectar su configuración; corre dentro de la cadena de seguridad
+    @Bean
+    FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Idempotency-Key", "If-Match", "If-None-Match"));
         configuration.setAllowCredentials(true);
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "ETag", IdempotencyKeyFilter.REPLAYED_HEADER,
+                HttpHeaders.RETRY_AFTER));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -0,0 +1,47 @@
+package com.lvlup.tienda.security;
+
+import org.springframework.security.core.Authentication;
+
+import java.io.Serializable;
+import java.security.Principal;
+
+/**
+ * Principal construido a partir del token JWT en cada petición.
+ * Lleva el id del usuario para que los controladores no necesiten consultar la tabla users;
+ * getName() sigue retornando el correo, por lo que authentication.getName() no cambia.
+ */
+public class UserPrincipal implements Principal, Serializable {
+
+    private final Long id;
+    private final String correo;
+
+    public UserPrincipal(Long id, String correo) {
+        this.id = id;
+        this.correo = correo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return correo;
+    }
+
+    /**
+     * Obtiene el id del usuario autenticado sin tocar la base de datos.
+     */
+    public static Long currentUserId(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                && principal.getId() != null) {
+            return principal.getId();
+        }
+        throw new RuntimeException("Usuario no encontrado");
+    }
+
+    @Override
+    public String toString() {
+        return correo;
+    }
+}
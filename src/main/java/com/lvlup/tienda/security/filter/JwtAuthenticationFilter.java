@@ -1,9 +1,11 @@
 package com.lvlup.tienda.security.filter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lvlup.tienda.exceptions.PasswordHashingRejectedException;
 import com.lvlup.tienda.models.users.User;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import com.lvlup.tienda.security.AuthenticatedUser;
+import com.lvlup.tienda.security.JwtTokenIssuer;
+import com.lvlup.tienda.security.JwtTokenIssuer.TokenPair;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,12 +14,9 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,8 +26,11 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
 
     private AuthenticationManager authenticationManager;
 
-    public JwtAuthenticationFilter(AuthenticationManager authenticationManager) {
+    private JwtTokenIssuer jwtTokenIssuer;
+
+    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, JwtTokenIssuer jwtTokenIssuer) {
         this.authenticationManager = authenticationManager;
+        this.jwtTokenIssuer = jwtTokenIssuer;
     }
 
     @Override
@@ -57,29 +59,18 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
     protected void successfulAuthentication(HttpServletRequest request, HttpServletResponse response,
             FilterChain chain, Authentication authResult) throws IOException, ServletException {
 
-        org.springframework.security.core.userdetails.User user =
-                (org.springframework.security.core.userdetails.User) authResult.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authResult.getPrincipal();
         String correo = user.getUsername();
 
-        Collection<? extends GrantedAuthority> roles = authResult.getAuthorities();
-        Claims claims = Jwts.claims()
-                .add("authorities", new ObjectMapper().writeValueAsString(roles))
-                .add("username", correo)
-                .build();
-
-        String token = Jwts.builder()
-                .subject(correo)
-                .claims(claims)
-                .expiration(new Date(System.currentTimeMillis() + 3600000)) // 1 hora
-                .issuedAt(new Date())
-                .signWith(SECRET_KEY)
-                .compact();
+        TokenPair tokens = jwtTokenIssuer.issueSession(user.getId(), correo, authResult.getAuthorities());
 
-        response.addHeader(HEADER_STRING, JWT_TOKEN_PREFIX + token);
+        response.addHeader(HEADER_STRING, JWT_TOKEN_PREFIX + tokens.accessToken());
 
         Map<String, String> body = new HashMap<>();
-        body.put("token", token);
+        body.put("token", tokens.accessToken());
+        body.put("refreshToken", tokens.refreshToken());
         body.put("username", correo);
+        body.put("userId", String.valueOf(user.getId()));
         body.put("message", String.format("Autenticación exitosa para el usuario %s", correo));
 
         response.getWriter().write(new ObjectMapper().writeValueAsString(body));
@@ -91,6 +82,19 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
     protected void unsuccessfulAuthentication(HttpServletRequest request, HttpServletResponse response,
             AuthenticationException failed) throws IOException, ServletException {
 
+        // Pool de hashing saturado: no es un error de credenciales, el cliente debe reintentar
+        if (failed instanceof PasswordHashingRejectedException) {
+            Map<String, String> body = new HashMap<>();
+            body.put("message", "Servicio de autenticación saturado");
+            body.put("error", failed.getMessage());
+
+            response.getWriter().write(new ObjectMapper().writeValueAsString(body));
+            response.setHeader("Retry-After", "1");
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setContentType(CONTENT_TYPE);
+            return;
+        }
+
         Map<String, String> body = new HashMap<>();
         body.put("message", "Autenticación fallida, correo o contraseña inválidos");
         body.put("error", failed.getMessage());
@@ -1,24 +1,20 @@
 package com.lvlup.tienda.security.filter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.lvlup.tienda.security.SimpleGrantedAuthorityJsonCreator;
-import io.jsonwebtoken.Claims;
+import com.lvlup.tienda.security.JwtTokenVerifier;
+import com.lvlup.tienda.security.JwtTokenVerifier.VerifiedToken;
+import com.lvlup.tienda.services.tokens.TokenRevocationService;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,8 +22,15 @@ import static com.lvlup.tienda.security.TokenJwtConfig.*;
 
 public class JwtValidationFilter extends BasicAuthenticationFilter {
 
-    public JwtValidationFilter(AuthenticationManager authenticationManager) {
+    private final JwtTokenVerifier jwtTokenVerifier;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    public JwtValidationFilter(AuthenticationManager authenticationManager, JwtTokenVerifier jwtTokenVerifier,
+                               TokenRevocationService tokenRevocationService) {
         super(authenticationManager);
+        this.jwtTokenVerifier = jwtTokenVerifier;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -45,23 +48,14 @@ public class JwtValidationFilter extends BasicAuthenticationFilter {
         String token = header.replace(JWT_TOKEN_PREFIX, "");
 
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(SECRET_KEY)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            String username = claims.getSubject();
-            Object authoritiesClaim = claims.get("authorities");
-
-            Collection<? extends GrantedAuthority> authorities = Arrays.asList(
-                    new ObjectMapper()
-                            .addMixIn(SimpleGrantedAuthority.class, SimpleGrantedAuthorityJsonCreator.class)
-                            .readValue(authoritiesClaim.toString().getBytes(), SimpleGrantedAuthority[].class)
-            );
+            VerifiedToken verified = jwtTokenVerifier.verify(token);
+            // Filtro de Bloom en memoria: solo los posibles revocados consultan la base de datos
+            if (verified.sessionId() != null && tokenRevocationService.isRevoked(verified.sessionId())) {
+                throw new JwtException("La sesión fue revocada");
+            }
 
             UsernamePasswordAuthenticationToken authenticationToken =
-                    new UsernamePasswordAuthenticationToken(username, null, authorities);
+                    new UsernamePasswordAuthenticationToken(verified.principal(), null, verified.authorities());
 
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             chain.doFilter(request, response);
@@ -0,0 +1,25 @@
+package com.lvlup.tienda.services.carts;
+
+/**
+ * Operación de la sincronización en lote del carrito, identificada por producto.
+ * ADD suma unidades, SET fija la cantidad (0 elimina la línea) y REMOVE elimina la línea.
+ */
+public record CartOperation(Type type, Long productId, int quantity) {
+
+    public enum Type {
+        ADD,
+        SET,
+        REMOVE;
+
+        public static Type from(String op) {
+            if (op != null) {
+                for (Type type : values()) {
+                    if (type.name().equalsIgnoreCase(op)) {
+                        return type;
+                    }
+                }
+            }
+            throw new RuntimeException("Operación no soportada: " + op + " (valores permitidos: add, set, remove)");
+        }
+    }
+}
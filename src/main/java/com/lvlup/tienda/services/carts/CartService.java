@@ -1,9 +1,13 @@
 package com.lvlup.tienda.services.carts;
 
+import com.lvlup.tienda.dtos.CartViewDto;
+import com.lvlup.tienda.exceptions.PreconditionFailedException;
 import com.lvlup.tienda.models.carts.Cart;
 import com.lvlup.tienda.models.carts.CartItem;
 import com.lvlup.tienda.models.products.Product;
+import com.lvlup.tienda.repositories.carts.CartItemBatchRepository;
 import com.lvlup.tienda.repositories.carts.CartItemRepository;
+import com.lvlup.tienda.repositories.carts.CartItemViewRow;
 import com.lvlup.tienda.repositories.carts.CartRepository;
 import com.lvlup.tienda.repositories.products.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,7 +15,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CartService {
@@ -26,27 +37,53 @@ public class CartService {
     private ProductRepository productRepository;
 
     /**
-     * Obtiene el carrito del usuario. Si no existe, lo crea.
+     * Obtiene el carrito del usuario con sus items. Si no existe, lo crea.
      */
     @Transactional
     public Cart getOrCreateCartByUserId(Long userId) {
-        Optional<Cart> existingCart = cartRepository.findByUserId(userId);
-
+        Optional<Cart> existingCart = cartRepository.findWithItemsByUserId(userId);
         if (existingCart.isPresent()) {
             return existingCart.get();
         }
 
-        // Crear nuevo carrito si no existe
-        Cart newCart = new Cart();
-        newCart.setUserId(userId);
-        return cartRepository.save(newCart);
+        // Primer uso: INSERT ... ON CONFLICT DO NOTHING, seguro aunque varias peticiones lleguen a la vez
+        Long cartId = getOrCreateCartId(userId);
+        return cartRepository.findById(cartId)
+                .orElseThrow(() -> new RuntimeException("Carrito no encontrado con ID: " + cartId));
+    }
+
+    /**
+     * Id del carrito del usuario, creándolo si no existe, en un solo viaje a la base de datos.
+     */
+    @Transactional
+    public Long getOrCreateCartId(Long userId) {
+        Long cartId = cartRepository.upsertIdByUserId(userId);
+        if (cartId != null) {
+            return cartId;
+        }
+        // Otra transacción creó el carrito durante la sentencia: una nueva consulta ya lo ve
+        return cartRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("No se pudo crear el carrito del usuario"));
+    }
+
+    /**
+     * Bloquea la fila del carrito (creándolo si no existe) y recién entonces lo carga con sus items.
+     * Todas las escrituras sobre el carrito, incluido el checkout, toman este bloqueo antes de leer,
+     * así dos peticiones concurrentes se aplican una después de la otra sobre cantidades actualizadas.
+     */
+    private Cart lockCart(Long userId) {
+        Long cartId = getOrCreateCartId(userId);
+        cartRepository.lockById(cartId);
+        return cartRepository.findWithItemsByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Carrito no encontrado con ID: " + cartId));
     }
 
     /**
-     * Agrega un producto al carrito o incrementa su cantidad si ya existe
+     * Agrega un producto al carrito o incrementa su cantidad si ya existe.
+     * expectedVersion viene del If-Match (null para no exigir versión).
      */
     @Transactional
-    public Cart addProductToCart(Long userId, Long productId, Integer quantity) {
+    public CartUpdate addProductToCart(Long userId, Long productId, Integer quantity, Long expectedVersion) {
         // Verificar que el producto existe y tiene stock suficiente
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + productId));
@@ -55,14 +92,16 @@ public class CartService {
             throw new RuntimeException("Stock insuficiente. Stock disponible: " + product.getStock());
         }
 
-        // Obtener o crear el carrito
-        Cart cart = getOrCreateCartByUserId(userId);
+        // Obtener o crear el carrito, ya bloqueado: un item agregado en paralelo se ve aquí y no se duplica
+        Cart cart = lockCart(userId);
+        checkVersion(cart, expectedVersion);
 
         // Verificar si el producto ya está en el carrito
         Optional<CartItem> existingItem = cart.getCartItems().stream()
                 .filter(item -> item.getProductId().equals(productId))
                 .findFirst();
 
+        Long version;
         if (existingItem.isPresent()) {
             // Si ya existe, incrementar la cantidad
             CartItem item = existingItem.get();
@@ -75,6 +114,7 @@ public class CartService {
 
             item.setQuantity(newQuantity);
             cartItemRepository.save(item);
+            version = adjustTotals(cart, lineTotal(item.getUnitPrice(), quantity), 0, expectedVersion);
         } else {
             // Si no existe, crear nuevo item
             CartItem newItem = new CartItem();
@@ -83,17 +123,111 @@ public class CartService {
             newItem.setUnitPrice(BigDecimal.valueOf(product.getPrecio()));
             cart.addCartItem(newItem);
             cartItemRepository.save(newItem);
+            version = adjustTotals(cart, lineTotal(newItem.getUnitPrice(), quantity), 1, expectedVersion);
+        }
+
+        return new CartUpdate(cartRepository.save(cart), version);
+    }
+
+    /**
+     * Aplica en una sola transacción una lista de operaciones sobre el carrito (sincronización del carrito local)
+     * y retorna la vista final. Los productos referenciados se cargan en una sola consulta y las líneas
+     * modificadas se escriben como lote JDBC. Si una operación no es válida no se aplica ninguna.
+     */
+    @Transactional
+    public CartViewDto applyOperations(Long userId, List<CartOperation> operations, Long expectedVersion) {
+        Set<Long> productIds = new HashSet<>();
+        for (CartOperation operation : operations) {
+            if (operation.productId() == null) {
+                throw new RuntimeException("Cada operación debe tener productId");
+            }
+            if (operation.type() != CartOperation.Type.REMOVE) {
+                productIds.add(operation.productId());
+            }
+        }
+
+        Cart cart = lockCart(userId);
+        checkVersion(cart, expectedVersion);
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(product -> products.put(product.getId(), product));
+
+        // Cantidades finales por producto, partiendo de las líneas actuales
+        Map<Long, Integer> original = new HashMap<>();
+        Map<Long, BigDecimal> unitPrices = new HashMap<>();
+        for (CartItem item : cart.getCartItems()) {
+            original.put(item.getProductId(), item.getQuantity());
+            unitPrices.put(item.getProductId(), item.getUnitPrice());
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>(original);
+        for (CartOperation operation : operations) {
+            Long productId = operation.productId();
+            switch (operation.type()) {
+                case ADD -> {
+                    if (operation.quantity() <= 0) {
+                        throw new RuntimeException("La cantidad a agregar debe ser mayor a 0");
+                    }
+                    quantities.merge(productId, operation.quantity(), Integer::sum);
+                }
+                case SET -> {
+                    if (operation.quantity() < 0) {
+                        throw new RuntimeException("La cantidad no puede ser negativa");
+                    }
+                    if (operation.quantity() == 0) {
+                        quantities.remove(productId);
+                    } else {
+                        quantities.put(productId, operation.quantity());
+                    }
+                }
+                case REMOVE -> quantities.remove(productId);
+            }
+        }
+
+        // Solo se escriben las líneas que realmente cambiaron
+        List<CartItemBatchRepository.ItemWrite> writes = new ArrayList<>();
+        BigDecimal totalDelta = BigDecimal.ZERO;
+        int itemCountDelta = 0;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            int quantity = entry.getValue();
+            if (original.containsKey(productId) && original.get(productId) == quantity) {
+                continue;
+            }
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new RuntimeException("Producto no encontrado con ID: " + productId);
+            }
+            if (product.getStock() < quantity) {
+                throw new RuntimeException("Stock insuficiente para el producto " + productId
+                        + ". Stock disponible: " + product.getStock());
+            }
+            BigDecimal unitPrice = unitPrices.getOrDefault(productId, BigDecimal.valueOf(product.getPrecio()));
+            writes.add(new CartItemBatchRepository.ItemWrite(productId, quantity, unitPrice));
+            totalDelta = totalDelta.add(lineTotal(unitPrice, quantity - original.getOrDefault(productId, 0)));
+            if (!original.containsKey(productId)) {
+                itemCountDelta++;
+            }
+        }
+        List<Long> removed = original.keySet().stream().filter(productId -> !quantities.containsKey(productId)).toList();
+        for (Long productId : removed) {
+            totalDelta = totalDelta.subtract(lineTotal(unitPrices.get(productId), original.get(productId)));
+            itemCountDelta--;
         }
 
-        return cartRepository.save(cart);
+        cartItemRepository.deleteByCartIdAndProductIds(cart.getId(), removed);
+        cartItemRepository.upsertBatch(cart.getId(), writes);
+        if (!writes.isEmpty() || !removed.isEmpty()) {
+            adjustTotals(cart, totalDelta, itemCountDelta, expectedVersion);
+        }
+        return getCartView(userId);
     }
 
     /**
      * Actualiza la cantidad de un producto en el carrito
      */
     @Transactional
-    public Cart updateCartItemQuantity(Long userId, Long cartItemId, Integer newQuantity) {
-        Cart cart = getOrCreateCartByUserId(userId);
+    public CartUpdate updateCartItemQuantity(Long userId, Long cartItemId, Integer newQuantity, Long expectedVersion) {
+        Cart cart = lockCart(userId);
+        checkVersion(cart, expectedVersion);
 
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Item del carrito no encontrado con ID: " + cartItemId));
@@ -111,25 +245,31 @@ public class CartService {
             throw new RuntimeException("Stock insuficiente. Stock disponible: " + product.getStock());
         }
 
+        int previousQuantity = cartItem.getQuantity();
+        Long version;
         if (newQuantity <= 0) {
             // Si la nueva cantidad es 0 o menor, eliminar el item
             cart.removeCartItem(cartItem);
             cartItemRepository.delete(cartItem);
+            version = adjustTotals(cart, lineTotal(cartItem.getUnitPrice(), -previousQuantity), -1, expectedVersion);
         } else {
             // Actualizar la cantidad
             cartItem.setQuantity(newQuantity);
             cartItemRepository.save(cartItem);
+            version = adjustTotals(cart, lineTotal(cartItem.getUnitPrice(), newQuantity - previousQuantity), 0,
+                    expectedVersion);
         }
 
-        return cartRepository.save(cart);
+        return new CartUpdate(cartRepository.save(cart), version);
     }
 
     /**
      * Elimina un producto del carrito
      */
     @Transactional
-    public Cart removeProductFromCart(Long userId, Long cartItemId) {
-        Cart cart = getOrCreateCartByUserId(userId);
+    public CartUpdate removeProductFromCart(Long userId, Long cartItemId, Long expectedVersion) {
+        Cart cart = lockCart(userId);
+        checkVersion(cart, expectedVersion);
 
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Item del carrito no encontrado con ID: " + cartItemId));
@@ -141,36 +281,92 @@ public class CartService {
 
         cart.removeCartItem(cartItem);
         cartItemRepository.delete(cartItem);
+        Long version = adjustTotals(cart, lineTotal(cartItem.getUnitPrice(), -cartItem.getQuantity()), -1,
+                expectedVersion);
 
-        return cartRepository.save(cart);
+        return new CartUpdate(cartRepository.save(cart), version);
     }
 
     /**
-     * Limpia todo el carrito del usuario
+     * Limpia todo el carrito del usuario.
+     * Primero el UPDATE condicional de los totales, que bloquea la fila del carrito, y después un solo DELETE
+     * de sus items, sin cargar la colección ni borrar item por item vía orphanRemoval.
      */
     @Transactional
-    public void clearCart(Long userId) {
+    public Long clearCart(Long userId, Long expectedVersion) {
         Cart cart = getOrCreateCartByUserId(userId);
-        cart.getCartItems().clear();
-        cartRepository.save(cart);
+        checkVersion(cart, expectedVersion);
+        Long version = cartRepository.resetTotals(cart.getId(), expectedVersion);
+        if (version == null) {
+            throw new PreconditionFailedException("El carrito fue modificado por otra petición");
+        }
+        // Limpia el contexto de persistencia: el carrito cargado queda desasociado y no se vuelve a guardar
+        cartItemRepository.deleteByCartId(cart.getId());
+        return version;
     }
 
     /**
-     * Calcula el total del carrito
+     * Total del carrito, leído de la columna desnormalizada (sin recorrer los items)
      */
+    @Transactional(readOnly = true)
     public BigDecimal calculateCartTotal(Long userId) {
-        Cart cart = getOrCreateCartByUserId(userId);
+        return cartRepository.findTotalByUserId(userId).orElse(BigDecimal.ZERO);
+    }
 
-        return cart.getCartItems().stream()
-                .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * UPDATE relativo en la BD (que también incrementa la versión) y el mismo cambio en memoria para la respuesta.
+     * La condición sobre la versión va en el mismo UPDATE: dos peticiones con el mismo If-Match no pueden
+     * aplicarse ambas, la segunda espera el bloqueo de la fila, ya no coincide y se revierte con 412.
+     */
+    private Long adjustTotals(Cart cart, BigDecimal totalDelta, int itemCountDelta, Long expectedVersion) {
+        Long version = cartRepository.adjustTotals(cart.getId(), totalDelta, itemCountDelta, expectedVersion);
+        if (version == null) {
+            throw new PreconditionFailedException("El carrito fue modificado por otra petición");
+        }
+        cart.applyTotalsDelta(totalDelta, itemCountDelta);
+        return version;
+    }
+
+    private static void checkVersion(Cart cart, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(cart.getVersion())) {
+            throw new PreconditionFailedException("El carrito fue modificado (versión actual: " + cart.getVersion() + ")");
+        }
+    }
+
+    private static BigDecimal lineTotal(BigDecimal unitPrice, int quantity) {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    /**
+     * Vista de solo lectura del carrito con total y cantidad de items, en una sola consulta.
+     * Si el usuario no tiene carrito retorna uno vacío sin insertarlo.
+     */
+    @Transactional(readOnly = true)
+    public CartViewDto getCartView(Long userId) {
+        List<CartItemViewRow> rows = cartRepository.findViewRowsByUserId(userId);
+
+        Long cartId = rows.isEmpty() ? null : rows.get(0).getCartId();
+        // Total y cantidad vienen desnormalizados en la fila del carrito
+        BigDecimal total = rows.isEmpty() ? BigDecimal.ZERO : rows.get(0).getCartTotal();
+        int itemCount = rows.isEmpty() ? 0 : rows.get(0).getCartItemCount();
+        Long version = rows.isEmpty() ? null : rows.get(0).getCartVersion();
+        List<CartViewDto.Item> items = new ArrayList<>(rows.size());
+        for (CartItemViewRow row : rows) {
+            if (row.getItemId() == null) {
+                // Carrito sin items: el LEFT JOIN deja una sola fila con el id del carrito
+                continue;
+            }
+            items.add(new CartViewDto.Item(row.getItemId(), row.getProductId(), row.getQuantity(), row.getUnitPrice(),
+                    cartId, row.getProductName(), row.getProductPrice(), row.getProductStock()));
+        }
+        return new CartViewDto(new CartViewDto.CartContent(cartId, userId, items), total, itemCount, version);
     }
 
     /**
-     * Obtiene el carrito del usuario con todos sus items
+     * Versión actual del carrito (null si no existe), para responder 304 sin armar la vista.
      */
     @Transactional(readOnly = true)
-    public Cart getCartByUserId(Long userId) {
-        return getOrCreateCartByUserId(userId);
+    public Long getCartVersion(Long userId) {
+        return cartRepository.findVersionByUserId(userId).orElse(null);
     }
 }
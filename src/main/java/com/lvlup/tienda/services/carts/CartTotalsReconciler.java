@@ -0,0 +1,57 @@
+package com.lvlup.tienda.services.carts;
+
+import com.lvlup.tienda.repositories.carts.CartRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Verifica periódicamente que total e item_count de cada carrito coincidan con sus items y corrige los que no.
+ * Los totales se mantienen con UPDATE relativos, pero hay escrituras que no pasan por CartService
+ * (por ejemplo el ON DELETE CASCADE de cart_items al eliminar un producto).
+ */
+@Component
+public class CartTotalsReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(CartTotalsReconciler.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Counter recomputed;
+
+    public CartTotalsReconciler(MeterRegistry meterRegistry) {
+        this.recomputed = Counter.builder("cart.totals.recomputed")
+                .description("Carritos cuyos totales desnormalizados se recalcularon por inconsistencia")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${carts.totals.reconcile-millis:3600000}",
+            fixedDelayString = "${carts.totals.reconcile-millis:3600000}")
+    public void reconcile() {
+        List<Long> cartIds = cartRepository.findIdsWithInconsistentTotals(BATCH_SIZE);
+        for (Long cartId : cartIds) {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Primero se bloquea la fila: la suma se calcula en otra sentencia, que ya ve
+                // los items de cualquier escritura sobre el carrito que estuviera en curso
+                cartRepository.lockById(cartId);
+                cartRepository.recomputeTotals(cartId);
+            });
+        }
+        if (!cartIds.isEmpty()) {
+            recomputed.increment(cartIds.size());
+            log.warn("Se recalcularon los totales de {} carritos inconsistentes", cartIds.size());
+        }
+    }
+}
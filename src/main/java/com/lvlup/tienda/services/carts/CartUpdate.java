@@ -0,0 +1,10 @@
+package com.lvlup.tienda.services.carts;
+
+import com.lvlup.tienda.models.carts.Cart;
+
+/**
+ * Carrito después de una modificación y su nueva versión (para el ETag de la respuesta).
+ * La versión se incrementa en la BD junto con los totales, por eso no se lee de la entidad en memoria.
+ */
+public record CartUpdate(Cart cart, Long version) {
+}
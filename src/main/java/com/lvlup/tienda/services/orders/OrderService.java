@@ -0,0 +1,110 @@
+package com.lvlup.tienda.services.orders;
+
+import com.lvlup.tienda.dtos.OrderDto;
+import com.lvlup.tienda.dtos.OrderItemDto;
+import com.lvlup.tienda.models.carts.Cart;
+import com.lvlup.tienda.models.carts.CartItem;
+import com.lvlup.tienda.models.orders.Order;
+import com.lvlup.tienda.models.orders.OrderItem;
+import com.lvlup.tienda.repositories.carts.CartItemRepository;
+import com.lvlup.tienda.repositories.carts.CartRepository;
+import com.lvlup.tienda.repositories.orders.OrderItemRepository;
+import com.lvlup.tienda.repositories.orders.OrderRepository;
+import com.lvlup.tienda.repositories.products.ProductStockRepository.DecrementedStock;
+import com.lvlup.tienda.services.products.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+@Service
+public class OrderService {
+
+    private static final String ESTADO_INICIAL = "PENDIENTE";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Convierte el carrito del usuario en una orden dentro de una sola transacción.
+     * La cantidad de consultas es fija sin importar cuántos items tenga el carrito:
+     * bloqueo del carrito, carrito + items, descuento de stock, orden, lote de items y vaciado del carrito.
+     * La fila del carrito se bloquea antes de leer los items, así un item agregado en paralelo espera al checkout
+     * (y queda en el carrito vacío) en vez de borrarse sin haberse ordenado.
+     * Se cobra el precio vigente de cada producto, leído en la misma sentencia que descuenta su stock:
+     * un cambio de precio posterior a agregar el producto al carrito sí se aplica.
+     */
+    @Transactional
+    public OrderDto checkout(Long userId, String metodoPago, String direccionEnvio, String codigoCupon) {
+        Long cartId = cartRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("El carrito está vacío"));
+        cartRepository.lockById(cartId);
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
+                .filter(c -> !c.getCartItems().isEmpty())
+                .orElseThrow(() -> new RuntimeException("El carrito está vacío"));
+
+        // Cantidades por producto, ordenadas por id para bloquear filas siempre en el mismo orden
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (CartItem item : cart.getCartItems()) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        // Si algún producto no existe o no tiene stock se lanza una excepción y se revierte todo
+        Map<Long, DecrementedStock> products = productService.decrementStock(quantities);
+
+        List<OrderItem> items = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            DecrementedStock product = products.get(entry.getKey());
+            OrderItem item = new OrderItem();
+            item.setProductId(product.productId());
+            item.setProductName(product.nombre());
+            item.setQuantity(entry.getValue());
+            item.setUnitPrice(product.precio());
+            items.add(item);
+            total += product.precio() * entry.getValue();
+        }
+
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setTotal(total);
+        order.setDescuento(0);
+        order.setEstado(ESTADO_INICIAL);
+        order.setMetodoPago(metodoPago);
+        order.setDireccionEnvio(direccionEnvio);
+        order.setCodigoCupon(codigoCupon);
+        order = orderRepository.save(order);
+
+        orderItemRepository.insertBatch(order.getId(), items);
+        // Con la fila bloqueada la versión leída no puede cambiar; si no coincide algo escribió sin bloquear
+        Long version = cart.getVersion();
+        cartItemRepository.deleteByCartId(cartId);
+        if (cartRepository.resetTotals(cartId, version) == null) {
+            throw new OptimisticLockingFailureException("El carrito fue modificado durante el checkout");
+        }
+
+        List<OrderItemDto> itemDtos = items.stream()
+                .map(item -> new OrderItemDto(item.getProductId(), item.getProductName(), item.getQuantity(), item.getUnitPrice()))
+                .toList();
+        return new OrderDto(order.getId(), order.getUserId(), order.getTotal(), order.getDescuento(), order.getEstado(),
+                order.getMetodoPago(), order.getDireccionEnvio(), order.getCodigoCupon(), itemDtos);
+    }
+}
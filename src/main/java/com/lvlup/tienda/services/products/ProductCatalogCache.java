@@ -0,0 +1,172 @@
+package com.lvlup.tienda.services.products;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lvlup.tienda.dtos.CursorPageDto;
+import com.lvlup.tienda.dtos.ProductDto;
+import com.lvlup.tienda.models.products.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria del catálogo de productos.
+ * Guarda vistas inmutables de los productos por id y, por separado, los ids de cada categoría
+ * y de la primera página de cada listado paginado, de modo que una actualización de producto
+ * no obliga a recargar las listas completas.
+ * Una carga que leyó la BD antes de una escritura no debe dejar en la caché la versión anterior: las cargas
+ * por id usan el cómputo atómico de Caffeine (la invalidación espera y gana), y las cargas en lote
+ * descartan lo que guardaron si hubo una invalidación mientras leían (contador de invalidaciones).
+ * Las métricas (cache.gets, cache.evictions, ...) se publican en /actuator/metrics.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private final Cache<Long, ProductDto> products;
+    private final Cache<String, List<Long>> categoryIds;
+    private final Cache<FirstPageKey, FirstPage> firstPages;
+
+    // Se incrementa antes de cada invalidación o escritura
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCatalogCache(MeterRegistry meterRegistry,
+                               @Value("${catalog.cache.max-size:10000}") long maxSize,
+                               @Value("${catalog.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.categoryIds = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.firstPages = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "catalog.products");
+        CaffeineCacheMetrics.monitor(meterRegistry, categoryIds, "catalog.categories");
+        CaffeineCacheMetrics.monitor(meterRegistry, firstPages, "catalog.first-pages");
+    }
+
+    public Optional<ProductDto> getProduct(Long id, Function<Long, Optional<Product>> loader) {
+        return Optional.ofNullable(products.get(id, key -> loader.apply(key).map(ProductDto::from).orElse(null)));
+    }
+
+    public List<ProductDto> getProductsByCategoria(String categoria, Supplier<List<Product>> loader,
+                                                   Function<Collection<Long>, List<Product>> batchLoader) {
+        List<Long> ids = categoryIds.getIfPresent(categoria);
+        if (ids != null) {
+            return getProductsByIds(ids, batchLoader);
+        }
+        long generation = invalidations.get();
+        List<ProductDto> loaded = loader.get().stream().map(product -> put(product, generation)).toList();
+        putIfNotInvalidated(categoryIds, categoria, loaded.stream().map(ProductDto::getId).toList(), generation);
+        return loaded;
+    }
+
+    /**
+     * Primera página del listado paginado (sin cursor), que es la lectura más frecuente del catálogo.
+     * Se guardan solo los ids y el cursor siguiente; los productos salen de la caché por id,
+     * así un cambio de stock no obliga a invalidar las páginas.
+     * categoria es null para el listado sin filtro.
+     */
+    public CursorPageDto<ProductDto> getFirstPage(ProductSort sort, String categoria, int limit,
+                                                  Supplier<CursorPageDto<Product>> loader,
+                                                  Function<Collection<Long>, List<Product>> batchLoader) {
+        FirstPageKey key = new FirstPageKey(sort, categoria, limit);
+        FirstPage cached = firstPages.getIfPresent(key);
+        if (cached != null) {
+            return new CursorPageDto<>(getProductsByIds(cached.ids(), batchLoader),
+                    cached.nextCursor(), limit, cached.hasMore());
+        }
+        long generation = invalidations.get();
+        CursorPageDto<Product> loaded = loader.get();
+        List<ProductDto> items = loaded.getItems().stream().map(product -> put(product, generation)).toList();
+        putIfNotInvalidated(firstPages, key, new FirstPage(items.stream().map(ProductDto::getId).toList(),
+                loaded.getNextCursor(), loaded.isHasMore()), generation);
+        return new CursorPageDto<>(items, loaded.getNextCursor(), limit, loaded.isHasMore());
+    }
+
+    /**
+     * Devuelve los productos en el mismo orden de los ids recibidos,
+     * cargando en una sola consulta los que no estén en memoria.
+     */
+    public List<ProductDto> getProductsByIds(List<Long> ids, Function<Collection<Long>, List<Product>> batchLoader) {
+        Map<Long, ProductDto> present = products.getAllPresent(ids);
+        if (present.size() < ids.size()) {
+            List<Long> missing = ids.stream().filter(id -> !present.containsKey(id)).toList();
+            Map<Long, ProductDto> found = new HashMap<>(present);
+            long generation = invalidations.get();
+            batchLoader.apply(missing).forEach(product -> found.put(product.getId(), put(product, generation)));
+            return ids.stream().map(found::get).filter(product -> product != null).toList();
+        }
+        return ids.stream().map(present::get).toList();
+    }
+
+    /**
+     * Actualiza la entrada del producto e invalida las listas afectadas.
+     * previousCategoria es la categoría antes de la escritura (null si es un producto nuevo).
+     */
+    public void onProductSaved(Product product, String previousCategoria) {
+        invalidations.incrementAndGet();
+        ProductDto dto = ProductDto.from(product);
+        products.put(dto.getId(), dto);
+        categoryIds.invalidate(product.getCategoria());
+        if (previousCategoria != null && !previousCategoria.equals(product.getCategoria())) {
+            categoryIds.invalidate(previousCategoria);
+        }
+        // Un producto nuevo o con otra categoría puede entrar en cualquier primera página
+        firstPages.invalidateAll();
+    }
+
+    public void onProductDeleted(Long id) {
+        invalidations.incrementAndGet();
+        products.invalidate(id);
+        // No se conoce la categoría del producto eliminado; las listas se recargan bajo demanda
+        categoryIds.invalidateAll();
+        firstPages.invalidateAll();
+    }
+
+    public void evictProducts(Collection<Long> ids) {
+        invalidations.incrementAndGet();
+        products.invalidateAll(ids);
+    }
+
+    private ProductDto put(Product product, long generation) {
+        return putIfNotInvalidated(products, product.getId(), ProductDto.from(product), generation);
+    }
+
+    /**
+     * Guarda el valor leído y lo retira si hubo una invalidación desde que empezó la carga.
+     * Si la invalidación llega después de la verificación, es posterior al put y ya lo borra ella;
+     * remove(key, value) solo retira este valor, no uno más nuevo que haya escrito onProductSaved.
+     */
+    private <K, V> V putIfNotInvalidated(Cache<K, V> cache, K key, V value, long generation) {
+        cache.put(key, value);
+        if (invalidations.get() != generation) {
+            cache.asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    private record FirstPageKey(ProductSort sort, String categoria, int limit) {
+    }
+
+    private record FirstPage(List<Long> ids, String nextCursor, boolean hasMore) {
+    }
+}
@@ -0,0 +1,246 @@
+package com.lvlup.tienda.services.products;
+
+import com.lvlup.tienda.models.products.Product;
+import com.lvlup.tienda.repositories.products.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria sobre nombre, categoría y descripción de los productos.
+ * Cada término normalizado apunta a los productos que lo contienen con un peso según el campo.
+ * La búsqueda exige que todos los términos de la consulta coincidan (exacto, por prefijo
+ * o con un error de tipeo acotado) y ordena por puntaje.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final float NOMBRE_WEIGHT = 3f;
+    private static final float CATEGORIA_WEIGHT = 2f;
+    private static final float DESCRIPCION_WEIGHT = 1f;
+
+    private static final float PREFIX_FACTOR = 0.8f;
+    private static final float TYPO_FACTOR = 0.5f;
+    private static final int MAX_EXPANSIONS_PER_TOKEN = 50;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Map<String, Float>> documents = new HashMap<>();
+    private volatile boolean ready;
+
+    // Escrituras hechas mientras se reconstruye (id -> producto, null si se eliminó), para no perderlas
+    // al cargar una lectura de la BD anterior a ellas
+    private Map<Long, Product> pendingDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Product> products = productRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            products.forEach(this::addDocument);
+            pendingDuringRebuild.forEach((productId, product) -> {
+                removeDocument(productId);
+                if (product != null) {
+                    addDocument(product);
+                }
+            });
+            pendingDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            addDocument(product);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.put(product.getId(), product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.put(productId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna los ids de los productos que coinciden con la consulta, del más al menos relevante.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = ProductTextNormalizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String token : tokens) {
+                Map<Long, Float> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Intersección: el producto debe coincidir con todos los términos
+                    Map<Long, Float> merged = new HashMap<>();
+                    for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                        Float tokenScore = tokenScores.get(entry.getKey());
+                        if (tokenScore != null) {
+                            merged.put(entry.getKey(), entry.getValue() + tokenScore);
+                        }
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Float>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            return ranked.stream().limit(limit).map(Map.Entry::getKey).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Float> scoreToken(String token) {
+        Map<Long, Float> tokenScores = new HashMap<>();
+
+        Map<Long, Float> exact = postings.get(token);
+        if (exact != null) {
+            exact.forEach((id, weight) -> tokenScores.merge(id, weight, Math::max));
+        }
+
+        // Prefijo: permite buscar mientras el usuario escribe ("play" -> "playstation")
+        NavigableMap<String, Map<Long, Float>> prefixed =
+                postings.subMap(token, false, token + Character.MAX_VALUE, false);
+        int expansions = 0;
+        for (Map<Long, Float> docs : prefixed.values()) {
+            if (++expansions > MAX_EXPANSIONS_PER_TOKEN) {
+                break;
+            }
+            docs.forEach((id, weight) -> tokenScores.merge(id, weight * PREFIX_FACTOR, Math::max));
+        }
+
+        if (tokenScores.isEmpty()) {
+            addTypoMatches(token, tokenScores);
+        }
+        return tokenScores;
+    }
+
+    /**
+     * Tolerancia a errores de tipeo: distancia de edición 1 para términos de 4 a 7 letras y 2 desde 8.
+     * Solo se comparan términos con la misma primera letra para acotar el costo.
+     */
+    private void addTypoMatches(String token, Map<Long, Float> tokenScores) {
+        int maxDistance = token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+        if (maxDistance == 0) {
+            return;
+        }
+        String first = token.substring(0, 1);
+        NavigableMap<String, Map<Long, Float>> candidates =
+                postings.subMap(first, true, first + Character.MAX_VALUE, false);
+        int expansions = 0;
+        for (Map.Entry<String, Map<Long, Float>> candidate : candidates.entrySet()) {
+            String term = candidate.getKey();
+            if (Math.abs(term.length() - token.length()) > maxDistance
+                    || editDistance(token, term, maxDistance) > maxDistance) {
+                continue;
+            }
+            candidate.getValue().forEach((id, weight) -> tokenScores.merge(id, weight * TYPO_FACTOR, Math::max));
+            if (++expansions >= MAX_EXPANSIONS_PER_TOKEN) {
+                break;
+            }
+        }
+    }
+
+    // Levenshtein con corte temprano cuando la fila completa supera el máximo permitido
+    private static int editDistance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private void addDocument(Product product) {
+        Map<String, Float> terms = new HashMap<>();
+        ProductTextNormalizer.tokenize(product.getNombre()).forEach(t -> terms.merge(t, NOMBRE_WEIGHT, Float::sum));
+        ProductTextNormalizer.tokenize(product.getCategoria()).forEach(t -> terms.merge(t, CATEGORIA_WEIGHT, Float::sum));
+        ProductTextNormalizer.tokenize(product.getDescripcion()).forEach(t -> terms.merge(t, DESCRIPCION_WEIGHT, Float::sum));
+
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(product.getId(), weight));
+        documents.put(product.getId(), terms);
+    }
+
+    private void removeDocument(Long productId) {
+        Map<String, Float> terms = documents.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(productId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
@@ -1,23 +1,42 @@
 package com.lvlup.tienda.services.products;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lvlup.tienda.dtos.CursorPageDto;
+import com.lvlup.tienda.dtos.ProductDto;
+import com.lvlup.tienda.dtos.ProductSuggestionDto;
 import com.lvlup.tienda.models.products.Product;
+import com.lvlup.tienda.repositories.products.ProductStockRepository.DecrementedStock;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ProductService {
 
-    List<Product> getAllProducts();
+    CursorPageDto<ProductDto> getProductsPage(String categoria, ProductSort sort, String cursor, int limit);
 
-    Optional<Product> getProductById(Long id);
+    Optional<ProductDto> getProductById(Long id);
 
-    List<Product> getProductsByCategoria(String categoria);
+    List<ProductDto> getProductsByCategoria(String categoria);
 
-    List<Product> searchProducts(String nombre);
+    List<ProductDto> searchProducts(String nombre);
+
+    List<ProductSuggestionDto> suggestProducts(String prefix, int limit);
 
     Product saveProduct(Product product);
 
     Product updateProduct(Long id, Product product);
 
+    /**
+     * Aplica un JSON Merge Patch. expectedVersion viene del If-Match (null para no exigir versión).
+     */
+    Product patchProduct(Long id, JsonNode patch, Long expectedVersion);
+
     void deleteProduct(Long id);
+
+    /**
+     * Descuenta el stock de varios productos, todo o nada, y retorna por id el nombre y el precio vigentes
+     * al descontar. Solo lo usa el checkout de órdenes: no hay endpoint que permita al cliente descontar stock.
+     */
+    Map<Long, DecrementedStock> decrementStock(Map<Long, Integer> quantitiesByProductId);
 }
@@ -1,48 +1,160 @@
 package com.lvlup.tienda.services.products;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lvlup.tienda.dtos.CursorPageDto;
+import com.lvlup.tienda.dtos.ProductDto;
+import com.lvlup.tienda.dtos.ProductSuggestionDto;
+import com.lvlup.tienda.exceptions.InsufficientStockException;
+import com.lvlup.tienda.exceptions.PreconditionFailedException;
 import com.lvlup.tienda.models.products.Product;
 import com.lvlup.tienda.repositories.products.ProductRepository;
+import com.lvlup.tienda.repositories.products.ProductStockRepository.DecrementedStock;
+import com.lvlup.tienda.utils.CursorCodec;
+import com.lvlup.tienda.utils.JsonMergePatch;
+import com.lvlup.tienda.utils.TransactionCallbacks;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final String[] PROTECTED_FIELDS = {"id", "version", "createdAt", "updatedAt"};
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductCatalogCache catalogCache;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductSuggestIndex suggestIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    // Las lecturas cacheadas no abren transacción: un acierto en memoria no toma conexión del pool
+    @Override
+    public CursorPageDto<ProductDto> getProductsPage(String categoria, ProductSort sort, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        boolean filtered = categoria != null && !categoria.isBlank();
+        if (filtered && (sort == ProductSort.CATEGORIA_ASC || sort == ProductSort.CATEGORIA_DESC)) {
+            // Con el filtro de categoría ordenar por categoría equivale a ordenar por id
+            sort = sort == ProductSort.CATEGORIA_ASC ? ProductSort.ID_ASC : ProductSort.ID_DESC;
+        }
+        String filter = filtered ? categoria : null;
+        ProductSort order = sort;
+
+        if (cursor == null || cursor.isBlank()) {
+            return catalogCache.getFirstPage(order, filter, pageSize,
+                    () -> loadPage(filter, order, null, null, pageSize), productRepository::findAllById);
+        }
+
+        String[] parts = CursorCodec.decode(cursor, 3);
+        if (!parts[0].equals(order.name())) {
+            throw new RuntimeException("El cursor no corresponde al orden solicitado");
+        }
+        Long lastId;
+        try {
+            lastId = Long.valueOf(parts[2]);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Cursor de paginación inválido");
+        }
+        CursorPageDto<Product> page = loadPage(filter, order, parts[1], lastId, pageSize);
+        return new CursorPageDto<>(page.getItems().stream().map(ProductDto::from).toList(),
+                page.getNextCursor(), page.getLimit(), page.isHasMore());
+    }
+
+    private CursorPageDto<Product> loadPage(String categoria, ProductSort sort, String lastCategoria, Long lastId, int pageSize) {
+        // Se pide un elemento extra para saber si existe una página siguiente sin hacer COUNT
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+        boolean filtered = categoria != null;
+        List<Product> rows = switch (sort) {
+            case ID_ASC -> filtered
+                    ? productRepository.findByCategoriaAndIdGreaterThanOrderByIdAsc(categoria, lastId != null ? lastId : 0L, pageable)
+                    : productRepository.findByIdGreaterThanOrderByIdAsc(lastId != null ? lastId : 0L, pageable);
+            case ID_DESC -> filtered
+                    ? productRepository.findByCategoriaAndIdLessThanOrderByIdDesc(categoria, lastId != null ? lastId : Long.MAX_VALUE, pageable)
+                    : productRepository.findByIdLessThanOrderByIdDesc(lastId != null ? lastId : Long.MAX_VALUE, pageable);
+            case CATEGORIA_ASC -> lastId == null
+                    ? productRepository.findAllByOrderByCategoriaAscIdAsc(pageable)
+                    : productRepository.findPageAfterCategoriaAsc(lastCategoria, lastId, pageable);
+            case CATEGORIA_DESC -> lastId == null
+                    ? productRepository.findAllByOrderByCategoriaDescIdDesc(pageable)
+                    : productRepository.findPageAfterCategoriaDesc(lastCategoria, lastId, pageable);
+        };
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Product> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = items.get(items.size() - 1);
+            nextCursor = CursorCodec.encode(sort.name(), last.getCategoria(), String.valueOf(last.getId()));
+        }
+        return new CursorPageDto<>(items, nextCursor, pageSize, hasMore);
+    }
+
     @Override
-    @Transactional(readOnly = true)
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public Optional<ProductDto> getProductById(Long id) {
+        return catalogCache.getProduct(id, productRepository::findById);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+    public List<ProductDto> getProductsByCategoria(String categoria) {
+        return catalogCache.getProductsByCategoria(categoria,
+                () -> productRepository.findByCategoria(categoria), productRepository::findAllById);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<Product> getProductsByCategoria(String categoria) {
-        return productRepository.findByCategoria(categoria);
+    public List<ProductDto> searchProducts(String nombre) {
+        if (!searchIndex.isReady()) {
+            // Mientras el índice se construye al arrancar se usa la búsqueda en BD
+            return productRepository.findByNombreContainingIgnoreCase(nombre).stream().map(ProductDto::from).toList();
+        }
+        List<Long> ids = searchIndex.search(nombre, MAX_SEARCH_RESULTS);
+        return catalogCache.getProductsByIds(ids, productRepository::findAllById);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<Product> searchProducts(String nombre) {
-        return productRepository.findByNombreContainingIgnoreCase(nombre);
+    public List<ProductSuggestionDto> suggestProducts(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
     }
 
     @Override
     @Transactional
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        TransactionCallbacks.afterCommit(() -> {
+            catalogCache.onProductSaved(saved, null);
+            searchIndex.index(saved);
+            suggestIndex.index(saved.getId(), saved.getNombre());
+        });
+        return saved;
     }
 
     @Override
@@ -50,6 +162,7 @@ public class ProductServiceImpl implements ProductService {
     public Product updateProduct(Long id, Product product) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + id));
+        String previousCategoria = existingProduct.getCategoria();
 
         existingProduct.setNombre(product.getNombre());
         existingProduct.setCategoria(product.getCategoria());
@@ -58,12 +171,82 @@ public class ProductServiceImpl implements ProductService {
         existingProduct.setPrecio(product.getPrecio());
         existingProduct.setStock(product.getStock());
 
-        return productRepository.save(existingProduct);
+        Product saved = productRepository.save(existingProduct);
+        TransactionCallbacks.afterCommit(() -> {
+            catalogCache.onProductSaved(saved, previousCategoria);
+            searchIndex.index(saved);
+            suggestIndex.index(saved.getId(), saved.getNombre());
+        });
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public Product patchProduct(Long id, JsonNode patch, Long expectedVersion) {
+        Product existingProduct = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(existingProduct.getVersion())) {
+            throw new PreconditionFailedException("El producto fue modificado (versión actual: " + existingProduct.getVersion() + ")");
+        }
+        String previousCategoria = existingProduct.getCategoria();
+
+        JsonMergePatch.apply(objectMapper, existingProduct, patch, PROTECTED_FIELDS);
+        Set<ConstraintViolation<Product>> violations = validator.validate(existingProduct);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+
+        // El flush genera el UPDATE (solo columnas modificadas, con "WHERE version = ?") y deja la versión nueva para el ETag
+        Product saved = productRepository.saveAndFlush(existingProduct);
+        TransactionCallbacks.afterCommit(() -> {
+            catalogCache.onProductSaved(saved, previousCategoria);
+            searchIndex.index(saved);
+            suggestIndex.index(saved.getId(), saved.getNombre());
+        });
+        return saved;
     }
 
     @Override
     @Transactional
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        TransactionCallbacks.afterCommit(() -> {
+            catalogCache.onProductDeleted(id);
+            searchIndex.remove(id);
+            suggestIndex.remove(id);
+        });
+    }
+
+    @Override
+    @Transactional
+    public Map<Long, DecrementedStock> decrementStock(Map<Long, Integer> quantitiesByProductId) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        quantitiesByProductId.forEach((productId, quantity) -> {
+            if (productId == null || quantity == null || quantity <= 0) {
+                throw new RuntimeException("Cada item debe tener productId y una cantidad mayor a 0");
+            }
+            quantities.merge(productId, quantity, Integer::sum);
+        });
+        if (quantities.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, DecrementedStock> decremented = productRepository.decrementStockBatch(quantities).stream()
+                .collect(Collectors.toMap(DecrementedStock::productId, Function.identity()));
+        if (decremented.size() < quantities.size()) {
+            // Las excepciones revierten la transacción completa: o se descuentan todos los items o ninguno
+            List<Long> rejected = quantities.keySet().stream().filter(id -> !decremented.containsKey(id)).toList();
+            Set<Long> existing = productRepository.findAllById(rejected).stream()
+                    .map(Product::getId).collect(Collectors.toSet());
+            for (Long productId : rejected) {
+                if (!existing.contains(productId)) {
+                    throw new RuntimeException("Producto no encontrado con ID: " + productId);
+                }
+            }
+            throw new InsufficientStockException(rejected);
+        }
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        TransactionCallbacks.afterCommit(() -> catalogCache.evictProducts(productIds));
+        return decremented;
     }
 }
@@ -0,0 +1,23 @@
+package com.lvlup.tienda.services.products;
+
+/**
+ * Órdenes soportados por el listado paginado de productos.
+ * Todos terminan en id para que el keyset sea único y estable.
+ */
+public enum ProductSort {
+    ID_ASC,
+    ID_DESC,
+    CATEGORIA_ASC,
+    CATEGORIA_DESC;
+
+    public static ProductSort from(String sort, String direction) {
+        boolean desc = "desc".equalsIgnoreCase(direction);
+        if (sort == null || sort.isBlank() || "id".equalsIgnoreCase(sort)) {
+            return desc ? ID_DESC : ID_ASC;
+        }
+        if ("categoria".equalsIgnoreCase(sort)) {
+            return desc ? CATEGORIA_DESC : CATEGORIA_ASC;
+        }
+        throw new RuntimeException("Orden no soportado: " + sort + " (valores permitidos: id, categoria)");
+    }
+}
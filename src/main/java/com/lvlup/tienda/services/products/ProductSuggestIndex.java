@@ -0,0 +1,197 @@
+package com.lvlup.tienda.services.products;
+
+import com.lvlup.tienda.dtos.ProductSuggestionDto;
+import com.lvlup.tienda.repositories.products.ProductNameView;
+import com.lvlup.tienda.repositories.products.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Índice de autocompletado por prefijo sobre los nombres de productos.
+ * Se guarda como arreglos ordenados (clave normalizada, id, nombre) en una instantánea inmutable:
+ * las lecturas hacen una búsqueda binaria sin bloqueos y cada escritura publica una instantánea nueva.
+ * Cada palabra del nombre genera una clave, así "ps5" encuentra "Consola PS5".
+ */
+@Component
+public class ProductSuggestIndex {
+
+    private static final Snapshot EMPTY = new Snapshot(new String[0], new long[0], new String[0]);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private volatile Snapshot snapshot = EMPTY;
+
+    public ProductSuggestIndex(MeterRegistry meterRegistry) {
+        Gauge.builder("catalog.suggest.memory", this, index -> index.snapshot.estimatedBytes)
+                .description("Memoria estimada del índice de autocompletado")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("catalog.suggest.entries", this, index -> index.snapshot.keys.length)
+                .description("Claves en el índice de autocompletado")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<Entry> entries = new ArrayList<>();
+        for (ProductNameView product : productRepository.findAllNames()) {
+            addEntries(entries, product.getId(), product.getNombre());
+        }
+        snapshot = Snapshot.of(entries);
+    }
+
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        String normalized = ProductTextNormalizer.normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        int index = Arrays.binarySearch(current.keys, normalized);
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        List<ProductSuggestionDto> suggestions = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = index; i < current.keys.length && suggestions.size() < limit; i++) {
+            if (!current.keys[i].startsWith(normalized)) {
+                break;
+            }
+            if (seen.add(current.ids[i])) {
+                suggestions.add(new ProductSuggestionDto(current.ids[i], current.names[i]));
+            }
+        }
+        return suggestions;
+    }
+
+    public synchronized void index(Long productId, String nombre) {
+        List<Entry> added = new ArrayList<>();
+        addEntries(added, productId, nombre);
+        snapshot = snapshot.replace(productId, added);
+    }
+
+    public synchronized void remove(Long productId) {
+        snapshot = snapshot.replace(productId, new ArrayList<>());
+    }
+
+    private static void addEntries(List<Entry> entries, Long id, String nombre) {
+        String normalized = ProductTextNormalizer.normalize(nombre);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        // Una clave por cada inicio de palabra: "consola ps5", "ps5"
+        for (int i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                entries.add(new Entry(normalized.substring(i), id, nombre));
+            }
+        }
+    }
+
+    private record Entry(String key, long id, String name) {
+        static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key).thenComparingLong(Entry::id);
+    }
+
+    private static final class Snapshot {
+        final String[] keys;
+        final long[] ids;
+        final String[] names;
+        final long estimatedBytes;
+
+        Snapshot(String[] keys, long[] ids, String[] names) {
+            this.keys = keys;
+            this.ids = ids;
+            this.names = names;
+            this.estimatedBytes = estimateBytes(keys, ids, names);
+        }
+
+        static Snapshot of(List<Entry> entries) {
+            entries.sort(Entry.ORDER);
+            String[] keys = new String[entries.size()];
+            long[] ids = new long[entries.size()];
+            String[] names = new String[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                keys[i] = entry.key();
+                ids[i] = entry.id();
+                names[i] = entry.name();
+            }
+            return new Snapshot(keys, ids, names);
+        }
+
+        /**
+         * Copia la instantánea quitando las claves del producto y mezclando las nuevas en orden, en O(n).
+         */
+        Snapshot replace(long productId, List<Entry> added) {
+            added.sort(Entry.ORDER);
+            int removed = 0;
+            for (long id : ids) {
+                if (id == productId) {
+                    removed++;
+                }
+            }
+            int size = keys.length - removed + added.size();
+            String[] newKeys = new String[size];
+            long[] newIds = new long[size];
+            String[] newNames = new String[size];
+
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < keys.length || j < added.size()) {
+                if (i < keys.length && ids[i] == productId) {
+                    i++;
+                    continue;
+                }
+                boolean takeAdded = i >= keys.length || (j < added.size() && isBefore(added.get(j), keys[i], ids[i]));
+                if (takeAdded) {
+                    Entry entry = added.get(j++);
+                    newKeys[k] = entry.key();
+                    newIds[k] = entry.id();
+                    newNames[k] = entry.name();
+                } else {
+                    newKeys[k] = keys[i];
+                    newIds[k] = ids[i];
+                    newNames[k] = names[i];
+                    i++;
+                }
+                k++;
+            }
+            return new Snapshot(newKeys, newIds, newNames);
+        }
+
+        private static boolean isBefore(Entry entry, String key, long id) {
+            int byKey = entry.key().compareTo(key);
+            return byKey < 0 || (byKey == 0 && entry.id() < id);
+        }
+
+        // Estimación con oops comprimidos: cabecera de arreglo 16 B, String ~40 B + 1 B por carácter (Latin-1).
+        // Todas las claves de un producto apuntan al mismo String de nombre, que se cuenta una sola vez.
+        private static long estimateBytes(String[] keys, long[] ids, String[] names) {
+            long bytes = 3L * 16 + 8L * ids.length + 4L * keys.length + 4L * names.length;
+            for (String key : keys) {
+                bytes += 40 + key.length();
+            }
+            Set<String> distinctNames = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (String name : names) {
+                if (distinctNames.add(name)) {
+                    bytes += 40 + name.length();
+                }
+            }
+            return bytes;
+        }
+    }
+}
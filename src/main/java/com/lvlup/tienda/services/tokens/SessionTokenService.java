@@ -0,0 +1,79 @@
+package com.lvlup.tienda.services.tokens;
+
+import com.lvlup.tienda.exceptions.InvalidTokenException;
+import com.lvlup.tienda.security.AuthenticatedUser;
+import com.lvlup.tienda.security.JwtTokenIssuer;
+import com.lvlup.tienda.security.JwtTokenIssuer.TokenPair;
+import com.lvlup.tienda.security.JwtTokenVerifier;
+import com.lvlup.tienda.security.JwtTokenVerifier.RefreshToken;
+import com.lvlup.tienda.services.users.JpaUserDetailsService;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Refresco y cierre de sesiones a partir del token de refresco, sin volver a verificar la contraseña.
+ */
+@Service
+public class SessionTokenService {
+
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+
+    @Autowired
+    private JwtTokenIssuer jwtTokenIssuer;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private JpaUserDetailsService userDetailsService;
+
+    /**
+     * Rota la sesión: revoca el token de refresco recibido y emite un par nuevo.
+     * Reutilizar un token ya rotado falla, así un token robado sirve como máximo una vez.
+     */
+    public TokenPair refresh(String refreshToken) {
+        RefreshToken token = verify(refreshToken);
+        if (tokenRevocationService.isRevokedInStore(token.sessionId())) {
+            throw new InvalidTokenException("La sesión fue revocada");
+        }
+
+        AuthenticatedUser user;
+        try {
+            // Roles y permisos actuales (desde la caché de credenciales de JpaUserDetailsService)
+            user = (AuthenticatedUser) userDetailsService.loadUserByUsername(token.correo());
+        } catch (UsernameNotFoundException e) {
+            throw new InvalidTokenException("El usuario de la sesión ya no existe");
+        }
+
+        if (!tokenRevocationService.revoke(token.sessionId(), toLocalDateTime(token))) {
+            throw new InvalidTokenException("La sesión fue revocada");
+        }
+        return jwtTokenIssuer.issueSession(user.getId(), user.getUsername(), user.getAuthorities());
+    }
+
+    /**
+     * Cierra la sesión: el token de refresco y los tokens de acceso emitidos con él dejan de ser válidos.
+     */
+    public void revoke(String refreshToken) {
+        RefreshToken token = verify(refreshToken);
+        tokenRevocationService.revoke(token.sessionId(), toLocalDateTime(token));
+    }
+
+    private RefreshToken verify(String refreshToken) {
+        try {
+            return jwtTokenVerifier.verifyRefresh(refreshToken);
+        } catch (JwtException e) {
+            throw new InvalidTokenException("El token de refresco no es válido");
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(RefreshToken token) {
+        return LocalDateTime.ofInstant(token.expiration().toInstant(), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,132 @@
+package com.lvlup.tienda.services.tokens;
+
+import com.lvlup.tienda.repositories.tokens.RevokedTokenRepository;
+import com.lvlup.tienda.utils.BloomFilter;
+import com.lvlup.tienda.utils.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Revocación de sesiones (tokens de refresco y los tokens de acceso emitidos con ellos).
+ * La tabla revoked_tokens es la fuente de verdad; en memoria se mantiene un filtro de Bloom con sus jti,
+ * así que validar un token normal no toca la base de datos: solo un "quizás revocado" se confirma con una consulta.
+ * <p>
+ * Las revocaciones hechas en otra instancia llegan al filtro con la sincronización incremental
+ * (jwt.revocation.sync-millis). Hasta entonces esta instancia sigue aceptando los tokens de acceso
+ * de esa sesión: esa es la ventana que queda, acotada además por la duración del token de acceso.
+ * Los tokens de refresco no tienen ventana: {@link #isRevokedInStore} y la rotación consultan la tabla.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // Margen al releer revocaciones recientes: cubre transacciones que confirmaron después de su revoked_at
+    // (que es la hora de inicio de la transacción) y la diferencia de reloj entre la aplicación y la BD
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private int expectedEntries;
+
+    private volatile BloomFilter revoked = BloomFilter.create(1, FALSE_POSITIVE_RATE);
+
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    // jti revocados mientras se reconstruye el filtro, para no perderlos al reemplazarlo
+    private List<String> pendingDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Reconstrucción completa: descarta del filtro las sesiones ya expiradas, que solo sumarían falsos positivos.
+     */
+    @Scheduled(initialDelayString = "${jwt.revocation.rebuild-millis:300000}",
+            fixedDelayString = "${jwt.revocation.rebuild-millis:300000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Agrega al filtro las revocaciones recientes, incluidas las hechas en otras instancias.
+     */
+    @Scheduled(initialDelayString = "${jwt.revocation.sync-millis:10000}",
+            fixedDelayString = "${jwt.revocation.sync-millis:10000}")
+    public void syncRecent() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.findJtisRevokedSince(lastSync.minus(SYNC_OVERLAP)).forEach(this::markRevoked);
+        lastSync = now;
+    }
+
+    void rebuild() {
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<String> jtis = transactionTemplate.execute(status -> {
+            revokedTokenRepository.deleteExpired(startedAt);
+            return revokedTokenRepository.findAllJtis();
+        });
+
+        BloomFilter filter = BloomFilter.create(Math.max(expectedEntries, jtis.size() * 2), FALSE_POSITIVE_RATE);
+        jtis.forEach(filter::add);
+        synchronized (this) {
+            pendingDuringRebuild.forEach(filter::add);
+            pendingDuringRebuild = null;
+            revoked = filter;
+        }
+        lastSync = startedAt;
+    }
+
+    /**
+     * Revoca la sesión. Retorna false si ya estaba revocada, lo que permite detectar la reutilización
+     * de un token de refresco ya rotado.
+     */
+    @Transactional
+    public boolean revoke(String jti, LocalDateTime expiresAt) {
+        boolean inserted = revokedTokenRepository.insertIfAbsent(jti, expiresAt) > 0;
+        TransactionCallbacks.afterCommit(() -> markRevoked(jti));
+        return inserted;
+    }
+
+    /**
+     * Consulta del token de acceso: puede no ver durante la ventana de sincronización una revocación hecha en otra instancia.
+     */
+    public boolean isRevoked(String jti) {
+        return revoked.mightContain(jti) && revokedTokenRepository.existsById(jti);
+    }
+
+    /**
+     * Consulta del token de refresco: va a la tabla aunque el filtro diga que no está, así ve al instante
+     * las revocaciones de cualquier instancia. Es una consulta por refresco, no por petición.
+     */
+    public boolean isRevokedInStore(String jti) {
+        return revokedTokenRepository.existsById(jti);
+    }
+
+    private synchronized void markRevoked(String jti) {
+        revoked.add(jti);
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.add(jti);
+        }
+    }
+}
@@ -1,60 +1,105 @@
 package com.lvlup.tienda.services.users;
 
-import com.lvlup.tienda.models.users.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lvlup.tienda.repositories.users.UserAuthorityRow;
 import com.lvlup.tienda.repositories.users.UserRepository;
+import com.lvlup.tienda.security.AuthenticatedUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
-public class JpaUserDetailsService implements UserDetailsService {
+public class JpaUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RolePermissionRegistry rolePermissionRegistry;
+
+    // Ráfagas de login del mismo usuario no vuelven a consultar users y users_roles
+    private final Cache<String, CachedUser> users;
+
+    public JpaUserDetailsService(MeterRegistry meterRegistry,
+                                 @Value("${users.details-cache.max-size:10000}") long maxSize,
+                                 @Value("${users.details-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users.details");
+    }
+
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String correo) throws UsernameNotFoundException {
-        User user = userRepository.findByCorreo(correo)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con correo: " + correo));
+        CachedUser user = users.getIfPresent(correo);
+        if (user == null) {
+            user = load(correo);
+            users.put(correo, user);
+        }
 
-        // Lista para acumular todas las autoridades (Roles + Permisos)
-        List<GrantedAuthority> authorities = new ArrayList<>();
-
-        // 1. Agregar los Roles como autoridades (ej: "ROLE_ADMIN")
-        authorities.addAll(
-                user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toList())
+        // Se retorna una instancia nueva: el AuthenticationManager borra la contraseña del objeto retornado.
+        // Los permisos se resuelven en cada llamada, así un refresh del registro aplica de inmediato
+        return new AuthenticatedUser(
+                user.id(),
+                user.correo(),
+                user.contrasena(),
+                rolePermissionRegistry.authoritiesForRoles(user.roleIds())
         );
+    }
 
-        // 2. Agregar los Permisos de cada Rol como autoridades (ej: "PRODUCT_CREATE")
-        user.getRoles().forEach(role -> {
-            if (role.getPermissions() != null) {
-                role.getPermissions().forEach(permission -> {
-                    authorities.add(new SimpleGrantedAuthority(permission.getName()));
-                });
+    /**
+     * Spring Security la invoca tras un login exitoso cuando el hash tiene un costo menor al configurado,
+     * con la contraseña ya re-hasheada.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        AuthenticatedUser authenticated = (AuthenticatedUser) user;
+        userRepository.updateContrasena(authenticated.getId(), newPassword);
+        evict(authenticated.getId());
+        return new AuthenticatedUser(authenticated.getId(), user.getUsername(), newPassword, user.getAuthorities());
+    }
+
+    /**
+     * Descarta las credenciales en memoria del usuario (tras editarlo, eliminarlo o cambiar su contraseña).
+     */
+    public void evict(Long userId) {
+        users.asMap().values().removeIf(user -> user.id().equals(userId));
+    }
+
+    private CachedUser load(String correo) {
+        List<UserAuthorityRow> rows = userRepository.findAuthorityRowsByCorreo(correo);
+        if (rows.isEmpty()) {
+            throw new UsernameNotFoundException("Usuario no encontrado con correo: " + correo);
+        }
+
+        Set<Long> roleIds = new LinkedHashSet<>();
+        for (UserAuthorityRow row : rows) {
+            if (row.getRoleId() != null) {
+                roleIds.add(row.getRoleId());
             }
-        });
-
-        // Retornar UserDetails de Spring Security con la lista completa
-        return new org.springframework.security.core.userdetails.User(
-                user.getCorreo(),
-                user.getContrasena(),
-                true, // enabled
-                true, // accountNonExpired
-                true, // credentialsNonExpired
-                true, // accountNonLocked
-                authorities
-        );
+        }
+
+        UserAuthorityRow first = rows.get(0);
+        return new CachedUser(first.getId(), first.getCorreo(), first.getContrasena(), List.copyOf(roleIds));
+    }
+
+    private record CachedUser(Long id, String correo, String contrasena, List<Long> roleIds) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,229 @@
+package com.lvlup.tienda.services.users;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lvlup.tienda.repositories.users.AuthorityNameView;
+import com.lvlup.tienda.repositories.users.PermissionRepository;
+import com.lvlup.tienda.repositories.users.RolePermissionRow;
+import com.lvlup.tienda.repositories.users.RoleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registro en memoria de roles y permisos, cargado al iniciar y recargado con {@link #refresh()}.
+ * Resuelve sin consultas el id de un rol por nombre y las authorities (rol + permisos) de cada rol.
+ * <p>
+ * También codifica las authorities dentro del token JWT: en lugar de la lista JSON de nombres, el token
+ * lleva dos máscaras de bits indexadas por el id de cada rol (tabla roles) y de cada permiso (tabla permisos):
+ * {@code 1.<roles>.<permisos>} en base64url. El id es estable entre reinicios e instancias, así que un token
+ * sigue siendo válido en cualquier nodo. Cada combinación distinta se decodifica una sola vez.
+ */
+@Service
+public class RolePermissionRegistry {
+
+    private static final String VERSION = "1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PermissionRepository permissionRepository;
+
+    private volatile Snapshot snapshot;
+
+    private final Cache<String, List<GrantedAuthority>> decoded = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * Id del rol con el nombre dado (ej: "ROLE_ADMIN").
+     */
+    public Long roleId(String name) {
+        Long id = snapshot().roleIds.get(name);
+        if (id == null) {
+            // Rol creado después de la última carga
+            id = reload().roleIds.get(name);
+        }
+        if (id == null) {
+            throw new RuntimeException("El rol " + name + " no existe");
+        }
+        return id;
+    }
+
+    /**
+     * Authorities de un usuario a partir de los ids de sus roles: primero los roles (ej: "ROLE_ADMIN")
+     * y luego los permisos de cada uno (ej: "PRODUCT_CREATE"), sin repetir.
+     */
+    public List<GrantedAuthority> authoritiesForRoles(Collection<Long> roleIds) {
+        Snapshot current = snapshot();
+        if (!roleIds.stream().allMatch(current.roles::containsKey)) {
+            current = reload();
+        }
+        if (roleIds.size() == 1) {
+            return current.permissionsByRole.getOrDefault(roleIds.iterator().next(), List.of());
+        }
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+        for (Long id : roleIds) {
+            GrantedAuthority role = current.roles.get(id);
+            if (role != null) {
+                authorities.add(role);
+            }
+        }
+        for (Long id : roleIds) {
+            authorities.addAll(current.permissionsByRole.getOrDefault(id, List.of()));
+        }
+        return List.copyOf(authorities);
+    }
+
+    /**
+     * Codifica las authorities (roles + permisos) de un usuario autenticado.
+     */
+    public String encode(Collection<? extends GrantedAuthority> authorities) {
+        Snapshot current = snapshot();
+        if (!current.knowsAll(authorities)) {
+            // Rol o permiso creado después de la última carga
+            current = reload();
+        }
+        BitSet roles = new BitSet();
+        BitSet permissions = new BitSet();
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            Long roleId = current.roleIds.get(name);
+            if (roleId != null) {
+                roles.set(Math.toIntExact(roleId));
+                continue;
+            }
+            Long permissionId = current.permissionIds.get(name);
+            if (permissionId == null) {
+                throw new IllegalStateException("Authority desconocida: " + name);
+            }
+            permissions.set(Math.toIntExact(permissionId));
+        }
+        return VERSION + '.' + ENCODER.encodeToString(roles.toByteArray())
+                + '.' + ENCODER.encodeToString(permissions.toByteArray());
+    }
+
+    /**
+     * Decodifica el claim del token. Lanza IllegalArgumentException si el formato no es válido.
+     */
+    public List<GrantedAuthority> decode(String encoded) {
+        List<GrantedAuthority> authorities = decoded.getIfPresent(encoded);
+        if (authorities == null) {
+            authorities = decodeUncached(encoded);
+            decoded.put(encoded, authorities);
+        }
+        return authorities;
+    }
+
+    /**
+     * Vuelve a leer roles y permisos desde la base de datos (tras modificarlos directamente en la BD).
+     */
+    public void refresh() {
+        reload();
+    }
+
+    private synchronized Snapshot reload() {
+        Snapshot loaded = new Snapshot(roleRepository.findAllNames(), permissionRepository.findAllNames(),
+                roleRepository.findAllRolePermissions());
+        snapshot = loaded;
+        decoded.invalidateAll();
+        return loaded;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : reload();
+    }
+
+    private List<GrantedAuthority> decodeUncached(String encoded) {
+        String[] parts = encoded.split("\\.", -1);
+        if (parts.length != 3 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Formato de authorities no soportado");
+        }
+        BitSet roles = BitSet.valueOf(DECODER.decode(parts[1]));
+        BitSet permissions = BitSet.valueOf(DECODER.decode(parts[2]));
+
+        Snapshot current = snapshot();
+        if (!current.knowsAll(roles, current.roles) || !current.knowsAll(permissions, current.permissions)) {
+            current = reload();
+        }
+        // Un id que sigue sin existir corresponde a un rol o permiso eliminado: se omite
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        addAll(authorities, roles, current.roles);
+        addAll(authorities, permissions, current.permissions);
+        return List.copyOf(authorities);
+    }
+
+    private static void addAll(List<GrantedAuthority> target, BitSet bits, Map<Long, GrantedAuthority> byId) {
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            GrantedAuthority authority = byId.get((long) id);
+            if (authority != null) {
+                target.add(authority);
+            }
+        }
+    }
+
+    /**
+     * Instantánea inmutable de los nombres; cada authority existe una sola vez en memoria.
+     */
+    private static final class Snapshot {
+        private final Map<Long, GrantedAuthority> roles = new HashMap<>();
+        private final Map<Long, GrantedAuthority> permissions = new HashMap<>();
+        private final Map<String, Long> roleIds = new HashMap<>();
+        private final Map<String, Long> permissionIds = new HashMap<>();
+        // Rol seguido de sus permisos, por id de rol
+        private final Map<Long, List<GrantedAuthority>> permissionsByRole = new HashMap<>();
+
+        private Snapshot(List<AuthorityNameView> roleNames, List<AuthorityNameView> permissionNames,
+                         List<RolePermissionRow> rolePermissions) {
+            for (AuthorityNameView role : roleNames) {
+                roles.put(role.getId(), new SimpleGrantedAuthority(role.getName()));
+                roleIds.put(role.getName(), role.getId());
+            }
+            for (AuthorityNameView permission : permissionNames) {
+                permissions.put(permission.getId(), new SimpleGrantedAuthority(permission.getName()));
+                permissionIds.put(permission.getName(), permission.getId());
+            }
+            Map<Long, Set<GrantedAuthority>> grouped = new HashMap<>();
+            roles.forEach((id, role) -> grouped.computeIfAbsent(id, k -> new LinkedHashSet<>()).add(role));
+            for (RolePermissionRow row : rolePermissions) {
+                GrantedAuthority permission = permissions.get(row.getPermissionId());
+                Set<GrantedAuthority> authorities = grouped.get(row.getRoleId());
+                if (permission != null && authorities != null) {
+                    authorities.add(permission);
+                }
+            }
+            grouped.forEach((id, authorities) -> permissionsByRole.put(id, List.copyOf(authorities)));
+        }
+
+        private boolean knowsAll(Collection<? extends GrantedAuthority> authorities) {
+            return authorities.stream().map(GrantedAuthority::getAuthority)
+                    .allMatch(name -> roleIds.containsKey(name) || permissionIds.containsKey(name));
+        }
+
+        private boolean knowsAll(BitSet bits, Map<Long, GrantedAuthority> byId) {
+            return bits.stream().allMatch(id -> byId.containsKey((long) id));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.lvlup.tienda.services.users;
+
+import com.lvlup.tienda.repositories.users.UserIdentifierView;
+import com.lvlup.tienda.repositories.users.UserRepository;
+import com.lvlup.tienda.utils.BloomFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filtros de Bloom con los correos y RUT registrados (normalizados), para validar la disponibilidad
+ * en el formulario de registro sin consultar la base de datos: un "no está" es definitivo y solo un
+ * "quizás está" se confirma con una consulta. Un filtro de Bloom no permite borrar, así que los usuarios
+ * eliminados se descartan en la reconstrucción periódica (mientras tanto solo cuestan una consulta extra).
+ * <p>
+ * Cada instancia tiene sus propios filtros: los registros hechos en otra instancia llegan con la sincronización
+ * incremental por updated_at (users.availability.sync-millis). Durante esa ventana esta instancia puede responder
+ * "disponible" para un correo recién registrado en otra; el índice único de la tabla sigue rechazando el duplicado.
+ */
+@Component
+public class UserAvailabilityIndex {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // Margen al releer usuarios recientes: cubre transacciones que confirmaron después de su updated_at
+    // y la diferencia de reloj entre la aplicación y la BD
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${users.availability.expected-entries:500000}")
+    private int expectedEntries;
+
+    private volatile Filters filters;
+
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    // Valores agregados mientras se reconstruye, para no perderlos al reemplazar los filtros
+    private List<String[]> pendingDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${users.availability.rebuild-millis:3600000}",
+            fixedDelayString = "${users.availability.rebuild-millis:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Agrega a los filtros los usuarios creados o modificados hace poco, incluidos los de otras instancias.
+     */
+    @Scheduled(initialDelayString = "${users.availability.sync-millis:10000}",
+            fixedDelayString = "${users.availability.sync-millis:10000}")
+    public void syncRecent() {
+        LocalDateTime now = LocalDateTime.now();
+        userRepository.findIdentifiersUpdatedSince(lastSync.minus(SYNC_OVERLAP))
+                .forEach(user -> add(user.getCorreo(), user.getRut()));
+        lastSync = now;
+    }
+
+    void rebuild() {
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<UserIdentifierView> users = userRepository.findAllIdentifiers();
+
+        int size = Math.max(expectedEntries, users.size() * 2);
+        Filters rebuilt = new Filters(BloomFilter.create(size, FALSE_POSITIVE_RATE),
+                BloomFilter.create(size, FALSE_POSITIVE_RATE));
+        users.forEach(user -> rebuilt.add(user.getCorreo(), user.getRut()));
+        synchronized (this) {
+            pendingDuringRebuild.forEach(values -> rebuilt.add(values[0], values[1]));
+            pendingDuringRebuild = null;
+            filters = rebuilt;
+        }
+        lastSync = startedAt;
+    }
+
+    /**
+     * Registra un correo y/o RUT en uso. Se llama antes del commit: si la transacción falla
+     * solo queda un falso positivo, nunca un "disponible" incorrecto.
+     */
+    public synchronized void add(String correo, String rut) {
+        if (filters != null) {
+            filters.add(correo, rut);
+        }
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.add(new String[]{correo, rut});
+        }
+    }
+
+    /**
+     * false si el correo seguro no está registrado; true si podría estarlo (o si el índice aún no está listo).
+     */
+    public boolean mightContainCorreo(String correo) {
+        Filters current = filters;
+        return current == null || current.correos.mightContain(normalizeCorreo(correo));
+    }
+
+    public boolean mightContainRut(String rut) {
+        Filters current = filters;
+        return current == null || current.ruts.mightContain(normalizeRut(rut));
+    }
+
+    private static String normalizeCorreo(String correo) {
+        return correo.trim().toLowerCase();
+    }
+
+    // "12.345.678-k" y "12345678K" son el mismo RUT
+    private static String normalizeRut(String rut) {
+        return rut.replaceAll("[.\\-\\s]", "").toUpperCase();
+    }
+
+    private record Filters(BloomFilter correos, BloomFilter ruts) {
+        void add(String correo, String rut) {
+            if (correo != null) {
+                correos.add(normalizeCorreo(correo));
+            }
+            if (rut != null) {
+                ruts.add(normalizeRut(rut));
+            }
+        }
+    }
+}
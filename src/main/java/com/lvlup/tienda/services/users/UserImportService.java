@@ -0,0 +1,293 @@
+package com.lvlup.tienda.services.users;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lvlup.tienda.dtos.UserImportResultDto;
+import com.lvlup.tienda.dtos.UserImportResultDto.RowError;
+import com.lvlup.tienda.models.users.User;
+import com.lvlup.tienda.repositories.users.UserRepository;
+import com.lvlup.tienda.security.BoundedPasswordEncoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Importación masiva de usuarios desde NDJSON (un objeto JSON por línea) o CSV (con fila de encabezado).
+ * El archivo se lee en streaming y se procesa en bloques: duplicados de correo/rut con una consulta por bloque,
+ * contraseñas hasheadas en paralelo en el pool de BCrypt, INSERT en lote JDBC y roles asignados con un solo
+ * INSERT ... SELECT. Cada bloque es una transacción; una fila inválida se reporta sin detener la importación.
+ */
+@Service
+public class UserImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final Set<String> ROLES = Set.of("ADMIN", "VENDEDOR", "CLIENTE");
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserAvailabilityIndex availabilityIndex;
+
+    public UserImportResultDto importUsers(InputStream input, boolean csv) throws IOException {
+        Result result = new Result();
+        Set<String> seenCorreos = new HashSet<>();
+        Set<String> seenRuts = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> header = null;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (csv && header == null) {
+                header = parseCsvLine(line).stream().map(UserImportService::normalizeKey).toList();
+                continue;
+            }
+
+            result.processed++;
+            Row row;
+            try {
+                row = toRow(lineNumber, csv ? csvFields(header, line) : jsonFields(line));
+            } catch (IllegalArgumentException | IOException e) {
+                result.error(lineNumber, null, "Formato inválido: " + e.getMessage());
+                continue;
+            }
+            String error = validate(row);
+            if (error == null && !seenCorreos.add(row.user.getCorreo())) {
+                error = "Correo repetido en el archivo";
+            }
+            if (error == null && row.user.getRut() != null && !seenRuts.add(row.user.getRut())) {
+                error = "RUT repetido en el archivo";
+            }
+            if (error != null) {
+                result.error(lineNumber, row.user.getCorreo(), error);
+                continue;
+            }
+
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                processChunk(chunk, result);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, result);
+        }
+
+        return new UserImportResultDto(result.processed, result.imported, result.failed,
+                result.errors, result.failed > result.errors.size());
+    }
+
+    private void processChunk(List<Row> chunk, Result result) {
+        // 1. Duplicados contra la base de datos: una consulta por columna para todo el bloque
+        Set<String> existingCorreos = new HashSet<>(userRepository.findExistingCorreos(
+                chunk.stream().map(row -> row.user.getCorreo()).toList()));
+        List<String> ruts = chunk.stream().map(row -> row.user.getRut()).filter(rut -> rut != null).toList();
+        Set<String> existingRuts = ruts.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingRuts(ruts));
+
+        Iterator<Row> iterator = chunk.iterator();
+        while (iterator.hasNext()) {
+            Row row = iterator.next();
+            if (existingCorreos.contains(row.user.getCorreo())) {
+                result.error(row.line, row.user.getCorreo(), "El correo ya está registrado");
+                iterator.remove();
+            } else if (row.user.getRut() != null && existingRuts.contains(row.user.getRut())) {
+                result.error(row.line, row.user.getCorreo(), "El RUT ya está registrado");
+                iterator.remove();
+            }
+        }
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        // 2. Hash de contraseñas en paralelo (pool acotado de BoundedPasswordEncoder)
+        List<String> hashes = passwordEncoder.encodeAll(chunk.stream().map(row -> row.user.getContrasena()).toList());
+        for (int i = 0; i < chunk.size(); i++) {
+            chunk.get(i).user.setContrasena(hashes.get(i));
+        }
+
+        // 3. Inserción del bloque; si falla (ej: un correo registrado en paralelo) se reintenta fila por fila
+        try {
+            insert(chunk);
+            result.imported += chunk.size();
+        } catch (DataAccessException e) {
+            for (Row row : chunk) {
+                try {
+                    insert(List.of(row));
+                    result.imported++;
+                } catch (DataAccessException rowError) {
+                    result.error(row.line, row.user.getCorreo(),
+                            "No se pudo insertar: " + NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+    }
+
+    private void insert(List<Row> rows) {
+        // Antes del commit: un rollback solo deja falsos positivos (una consulta extra), nunca un "disponible" incorrecto
+        rows.forEach(row -> availabilityIndex.add(row.user.getCorreo(), row.user.getRut()));
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.insertBatch(rows.stream().map(row -> row.user).toList());
+            userRepository.assignRolesByCorreo(rows.stream().map(row -> row.user.getCorreo()).toList());
+        });
+    }
+
+    private static String validate(Row row) {
+        User user = row.user;
+        if (user.getNombre() == null) {
+            return "El campo nombre es obligatorio";
+        }
+        if (user.getCorreo() == null || !EMAIL.matcher(user.getCorreo()).matches()) {
+            return "El correo debe ser válido";
+        }
+        if (user.getContrasena() == null || user.getContrasena().length() < 6) {
+            return "La contraseña debe tener al menos 6 caracteres";
+        }
+        if (!ROLES.contains(user.getRol())) {
+            return "Rol inválido: " + user.getRol();
+        }
+        return null;
+    }
+
+    private static Row toRow(int line, Map<String, String> fields) {
+        User user = new User();
+        user.setNombre(fields.get("nombre"));
+        user.setApellido(fields.get("apellido"));
+        user.setCorreo(fields.get("correo"));
+        user.setContrasena(fields.get("contrasena"));
+        user.setRut(fields.get("rut"));
+        user.setDireccion(fields.get("direccion"));
+        user.setTelefono(fields.get("telefono"));
+        user.setRegion(fields.get("region"));
+        user.setComuna(fields.get("comuna"));
+        String fechaNacimiento = fields.get("fechanacimiento");
+        if (fechaNacimiento != null) {
+            try {
+                user.setFechaNacimiento(Long.valueOf(fechaNacimiento));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("fechaNacimiento debe ser un número");
+            }
+        }
+        String rol = fields.get("rol");
+        user.setRol(rol != null ? rol.toUpperCase() : "CLIENTE");
+        return new Row(line, user);
+    }
+
+    private static Map<String, String> jsonFields(String line) throws IOException {
+        JsonNode node = MAPPER.readTree(line);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("se esperaba un objeto JSON");
+        }
+        Map<String, String> fields = new HashMap<>();
+        node.properties().forEach(entry -> {
+            if (!entry.getValue().isNull()) {
+                putIfPresent(fields, normalizeKey(entry.getKey()), entry.getValue().asText());
+            }
+        });
+        return fields;
+    }
+
+    private static Map<String, String> csvFields(List<String> header, String line) {
+        List<String> values = parseCsvLine(line);
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("se esperaban " + header.size() + " columnas");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            putIfPresent(fields, header.get(i), values.get(i));
+        }
+        return fields;
+    }
+
+    // Los valores vacíos se tratan como ausentes
+    private static void putIfPresent(Map<String, String> fields, String key, String value) {
+        String trimmed = value.trim();
+        if (!trimmed.isEmpty()) {
+            fields.put(key, trimmed);
+        }
+    }
+
+    // "fecha_nacimiento", "fechaNacimiento" y "FechaNacimiento" se aceptan como la misma columna
+    private static String normalizeKey(String key) {
+        return key.trim().toLowerCase().replace("_", "");
+    }
+
+    // CSV separado por comas; los valores entre comillas pueden contener comas y comillas dobles ("")
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("comillas sin cerrar");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private record Row(int line, User user) {
+    }
+
+    private static final class Result {
+        int processed;
+        int imported;
+        int failed;
+        final List<RowError> errors = new ArrayList<>();
+
+        void error(int line, String correo, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, correo, message));
+            }
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.lvlup.tienda.services.users;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lvlup.tienda.dtos.CursorPageDto;
+import com.lvlup.tienda.dtos.UserSummaryDto;
 import com.lvlup.tienda.models.users.User;
+import org.springframework.security.core.Authentication;
 
 import java.util.List;
 import java.util.Optional;
@@ -9,13 +13,25 @@ public interface UserService {
 
     List<User> findAll();
 
+    CursorPageDto<UserSummaryDto> findPage(String rol, String region, String comuna, String cursor, int limit,
+                                           boolean includeRoles);
+
     Optional<User> findById(Long id);
 
     Optional<User> findByCorreo(String correo);
 
     User save(User user);
 
-    User update(Long id, User user);
+    /**
+     * Solo un ADMIN puede modificar otra cuenta o cambiar el rol; si no, lanza AccessDeniedException (403).
+     */
+    User update(Long id, User user, Authentication caller);
+
+    /**
+     * Aplica un JSON Merge Patch. expectedVersion viene del If-Match (null para no exigir versión).
+     * Solo un ADMIN puede modificar otra cuenta o enviar rol/admin; si no, lanza AccessDeniedException (403).
+     */
+    User patch(Long id, JsonNode patch, Long expectedVersion, Authentication caller);
 
     void delete(Long id);
 
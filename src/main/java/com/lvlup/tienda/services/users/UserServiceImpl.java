@@ -1,36 +1,110 @@
 package com.lvlup.tienda.services.users;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lvlup.tienda.dtos.CursorPageDto;
+import com.lvlup.tienda.dtos.UserSummaryDto;
+import com.lvlup.tienda.exceptions.PreconditionFailedException;
 import com.lvlup.tienda.models.users.Role;
 import com.lvlup.tienda.models.users.User;
 import com.lvlup.tienda.repositories.users.RoleRepository;
 import com.lvlup.tienda.repositories.users.UserRepository;
+import com.lvlup.tienda.repositories.users.UserRoleRow;
+import com.lvlup.tienda.security.UserPrincipal;
+import com.lvlup.tienda.utils.CursorCodec;
+import com.lvlup.tienda.utils.JsonMergePatch;
+import com.lvlup.tienda.utils.TransactionCallbacks;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String[] PROTECTED_FIELDS =
+            {"id", "version", "createdAt", "updatedAt", "roles", "admin", "rol", "contrasena"};
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private RolePermissionRegistry rolePermissionRegistry;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JpaUserDetailsService userDetailsService;
+
+    @Autowired
+    private UserAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
     @Override
     @Transactional(readOnly = true)
     public List<User> findAll() {
         return userRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<UserSummaryDto> findPage(String rol, String region, String comuna, String cursor, int limit,
+                                                  boolean includeRoles) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterId = Long.parseLong(CursorCodec.decode(cursor, 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Cursor de paginación inválido");
+            }
+        }
+
+        // Se pide un elemento extra para saber si existe una página siguiente sin hacer COUNT
+        List<UserSummaryDto> rows = userRepository.findSummaryPage(afterId,
+                rol != null && !rol.isBlank() ? rol.toUpperCase() : null,
+                region != null && !region.isBlank() ? region : null,
+                comuna != null && !comuna.isBlank() ? comuna : null,
+                pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<UserSummaryDto> items = hasMore ? rows.subList(0, pageSize) : rows;
+        if (includeRoles && !items.isEmpty()) {
+            Map<Long, List<String>> rolesByUser = new HashMap<>();
+            for (UserRoleRow row : userRepository.findRoleNamesByUserIds(items.stream().map(UserSummaryDto::getId).toList())) {
+                rolesByUser.computeIfAbsent(row.getUserId(), id -> new ArrayList<>()).add(row.getRoleName());
+            }
+            items.forEach(user -> user.setRoles(rolesByUser.getOrDefault(user.getId(), List.of())));
+        }
+
+        String nextCursor = hasMore ? CursorCodec.encode(String.valueOf(items.get(items.size() - 1).getId())) : null;
+        return new CursorPageDto<>(items, nextCursor, pageSize, hasMore);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<User> findById(Long id) {
@@ -59,48 +133,41 @@ public class UserServiceImpl implements UserService {
         }
 
         // Mapear los roles según la convención de Spring Security
-        List<Role> roles = new ArrayList<>();
+        Set<String> roleNames = new LinkedHashSet<>();
 
         // Se fuerza mayúsculas para coincidir con los valores en BD y evitar errores de check constraint
         switch (roleName.toUpperCase()) {
             case "ADMIN":
-                Role roleAdmin = roleRepository.findByName("ROLE_ADMIN")
-                        .orElseThrow(() -> new RuntimeException("El rol ROLE_ADMIN no existe"));
-                roles.add(roleAdmin);
+                roleNames.add("ROLE_ADMIN");
                 break;
             case "VENDEDOR":
-                Role roleVendedor = roleRepository.findByName("ROLE_VENDEDOR")
-                        .orElseThrow(() -> new RuntimeException("El rol ROLE_VENDEDOR no existe"));
-                roles.add(roleVendedor);
+                roleNames.add("ROLE_VENDEDOR");
                 break;
             case "CLIENTE":
             default:
-                Role roleCliente = roleRepository.findByName("ROLE_CLIENTE")
-                        .orElseThrow(() -> new RuntimeException("El rol ROLE_CLIENTE no existe"));
-                roles.add(roleCliente);
+                roleNames.add("ROLE_CLIENTE");
                 break;
         }
 
         // Si el usuario es admin mediante el flag transitorio, agregar rol de admin
         if (user.isAdmin()) {
-            Role roleAdmin = roleRepository.findByName("ROLE_ADMIN")
-                    .orElseThrow(() -> new RuntimeException("El rol ROLE_ADMIN no existe"));
-            if (!roles.contains(roleAdmin)) {
-                roles.add(roleAdmin);
-            }
+            roleNames.add("ROLE_ADMIN");
         }
 
-        user.setRoles(roles);
+        user.setRoles(roleNames.stream().map(this::roleReference).collect(Collectors.toList()));
 
         // Encriptar la contraseña antes de guardar
         user.setContrasena(passwordEncoder.encode(user.getContrasena()));
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        availabilityIndex.add(saved.getCorreo(), saved.getRut());
+        return saved;
     }
 
     @Override
     @Transactional
-    public User update(Long id, User user) {
+    public User update(Long id, User user, Authentication caller) {
+        checkCanModify(id, caller);
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
 
@@ -141,24 +208,11 @@ public class UserServiceImpl implements UserService {
             existingUser.setFechaNacimiento(user.getFechaNacimiento());
         }
 
-        // Actualizar Rol (Si cambió y no es nulo)
-        if (user.getRol() != null && !user.getRol().isEmpty() && !user.getRol().equals(existingUser.getRol())) {
-             existingUser.setRol(user.getRol().toUpperCase()); // Forzamos mayúsculas
-             
-             // --- Lógica básica para actualizar la relación de roles si cambia el string ---
-             List<Role> newRoles = new ArrayList<>();
-             String roleKey = "ROLE_" + user.getRol().toUpperCase();
-             // Mapeo simple, asumiendo que los nombres de roles coinciden con la convención
-             if (roleKey.equals("ROLE_ADMIN") || roleKey.equals("ROLE_VENDEDOR") || roleKey.equals("ROLE_CLIENTE")) {
-                 Role r = roleRepository.findByName(roleKey).orElse(null);
-                 if (r != null) newRoles.add(r);
-             } else {
-                 // Fallback a cliente si el rol no es estándar
-                 Role r = roleRepository.findByName("ROLE_CLIENTE").orElse(null);
-                 if (r != null) newRoles.add(r);
-             }
-             existingUser.setRoles(newRoles);
+        // Actualizar Rol (Si cambió y no es nulo); solo un ADMIN puede cambiarlo
+        if (user.getRol() != null && !user.getRol().isEmpty() && !user.getRol().equalsIgnoreCase(existingUser.getRol())) {
+            checkAdmin(caller);
         }
+        applyRol(existingUser, user.getRol());
 
         // 2. LÓGICA DE CONTRASEÑA OPCIONAL (Solo para editar)
         if (user.getContrasena() != null && !user.getContrasena().trim().isEmpty()) {
@@ -167,24 +221,110 @@ public class UserServiceImpl implements UserService {
         }
         // Si viene null o vacía, NO tocamos el campo, manteniendo la clave vieja.
 
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        availabilityIndex.add(saved.getCorreo(), saved.getRut());
+        TransactionCallbacks.afterCommit(() -> userDetailsService.evict(id));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public User patch(Long id, JsonNode patch, Long expectedVersion, Authentication caller) {
+        checkCanModify(id, caller);
+        if (patch != null && (patch.has("rol") || patch.has("admin"))) {
+            checkAdmin(caller);
+        }
+        User existingUser = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(existingUser.getVersion())) {
+            throw new PreconditionFailedException("El usuario fue modificado (versión actual: " + existingUser.getVersion() + ")");
+        }
+
+        // Contraseña y rol no se copian tal cual: la primera se encripta y el segundo arrastra la relación de roles
+        JsonMergePatch.apply(objectMapper, existingUser, patch, PROTECTED_FIELDS);
+        Set<ConstraintViolation<User>> violations = validator.validate(existingUser);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        if (patch.hasNonNull("rol")) {
+            applyRol(existingUser, patch.get("rol").asText());
+        } else if (patch.path("admin").asBoolean(false)) {
+            applyRol(existingUser, "ADMIN");
+        }
+        if (patch.hasNonNull("contrasena")) {
+            String contrasena = patch.get("contrasena").asText();
+            if (contrasena.trim().length() < 6) {
+                throw new RuntimeException("La contraseña debe tener al menos 6 caracteres");
+            }
+            existingUser.setContrasena(passwordEncoder.encode(contrasena));
+        }
+
+        // El flush genera el UPDATE (solo columnas modificadas, con "WHERE version = ?") y deja la versión nueva para el ETag
+        User saved = userRepository.saveAndFlush(existingUser);
+        availabilityIndex.add(saved.getCorreo(), saved.getRut());
+        TransactionCallbacks.afterCommit(() -> userDetailsService.evict(id));
+        return saved;
     }
 
     @Override
     @Transactional
     public void delete(Long id) {
         userRepository.deleteById(id);
+        TransactionCallbacks.afterCommit(() -> userDetailsService.evict(id));
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean existsByCorreo(String correo) {
-        return userRepository.existsByCorreo(correo);
+        // Solo un posible duplicado según el filtro de Bloom llega a la base de datos
+        return availabilityIndex.mightContainCorreo(correo) && userRepository.existsByCorreo(correo);
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean existsByRut(String rut) {
-        return userRepository.existsByRut(rut);
+        return availabilityIndex.mightContainRut(rut) && userRepository.existsByRut(rut);
+    }
+
+    // Un CLIENTE solo puede modificar su propia cuenta
+    private static void checkCanModify(Long id, Authentication caller) {
+        if (!isAdmin(caller) && !id.equals(UserPrincipal.currentUserId(caller))) {
+            throw new AccessDeniedException("Solo puedes modificar tu propia cuenta");
+        }
+    }
+
+    private static void checkAdmin(Authentication caller) {
+        if (!isAdmin(caller)) {
+            throw new AccessDeniedException("Solo un administrador puede cambiar el rol");
+        }
+    }
+
+    private static boolean isAdmin(Authentication caller) {
+        return caller != null && caller.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    private void applyRol(User existingUser, String rol) {
+        if (rol == null || rol.isEmpty() || rol.equals(existingUser.getRol())) {
+            return;
+        }
+        existingUser.setRol(rol.toUpperCase()); // Forzamos mayúsculas
+
+        // --- Lógica básica para actualizar la relación de roles si cambia el string ---
+        List<Role> newRoles = new ArrayList<>();
+        String roleKey = "ROLE_" + rol.toUpperCase();
+        // Mapeo simple, asumiendo que los nombres de roles coinciden con la convención
+        if (roleKey.equals("ROLE_ADMIN") || roleKey.equals("ROLE_VENDEDOR") || roleKey.equals("ROLE_CLIENTE")) {
+            newRoles.add(roleReference(roleKey));
+        } else {
+            // Fallback a cliente si el rol no es estándar
+            newRoles.add(roleReference("ROLE_CLIENTE"));
+        }
+        existingUser.setRoles(newRoles);
+    }
+
+    // El id sale del registro en memoria y getReferenceById no consulta la BD: al insertar en users_roles solo se usa el id
+    private Role roleReference(String name) {
+        return roleRepository.getReferenceById(rolePermissionRegistry.roleId(name));
     }
 }
\ No newline at end of file
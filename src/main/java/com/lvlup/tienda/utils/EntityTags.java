@@ -0,0 +1,58 @@
+package com.lvlup.tienda.utils;
+
+import com.lvlup.tienda.exceptions.PreconditionFailedException;
+
+/**
+ * Convierte la columna de versión optimista de una entidad en un ETag y viceversa.
+ * Se usa un ETag fuerte con el número de versión: {@code "3"}.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + (version != null ? version : 0L) + "\"";
+    }
+
+    /**
+     * true si el encabezado If-None-Match (uno o varios ETags separados por coma, o "*") incluye la versión.
+     * Se compara en forma débil, como indica RFC 9110 para If-None-Match.
+     */
+    public static boolean matchesIfNoneMatch(String ifNoneMatch, Long version) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String current = of(version);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Versión esperada según el encabezado If-Match; null si no viene o es "*" (cualquier versión).
+     * If-Match usa comparación fuerte (RFC 9110): un ETag débil (W/...) nunca coincide y responde 412.
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            throw new PreconditionFailedException("If-Match no admite ETags débiles");
+        }
+        tag = tag.replace("\"", "");
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Encabezado If-Match inválido");
+        }
+    }
+}
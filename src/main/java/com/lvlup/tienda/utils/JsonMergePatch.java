@@ -0,0 +1,32 @@
+package com.lvlup.tienda.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Aplica un JSON Merge Patch (RFC 7396) sobre una entidad ya cargada: solo se modifican las propiedades
+ * presentes en el patch y un null borra el valor. Las propiedades protegidas (id, versión, timestamps...)
+ * se ignoran. Como la entidad está administrada por JPA, solo las columnas que realmente cambian quedan sucias.
+ */
+public final class JsonMergePatch {
+
+    private JsonMergePatch() {
+    }
+
+    public static <T> T apply(ObjectMapper mapper, T target, JsonNode patch, String... protectedFields) {
+        if (patch == null || !patch.isObject()) {
+            throw new RuntimeException("El patch debe ser un objeto JSON");
+        }
+        ObjectNode allowed = ((ObjectNode) patch).deepCopy();
+        allowed.remove(List.of(protectedFields));
+        try {
+            return mapper.readerForUpdating(target).readValue(allowed);
+        } catch (IOException e) {
+            throw new RuntimeException("Patch inválido: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+-- Script SQL para los totales desnormalizados del carrito
+-- Ejecutar este script en la base de datos PostgreSQL
+
+BEGIN;
+
+-- Total y cantidad de líneas; la aplicación los mantiene con UPDATE relativos
+ALTER TABLE carts ADD COLUMN IF NOT EXISTS total DECIMAL(12, 2) NOT NULL DEFAULT 0;
+ALTER TABLE carts ADD COLUMN IF NOT EXISTS item_count INTEGER NOT NULL DEFAULT 0;
+
+-- Carga inicial a partir de los items existentes
+UPDATE carts c
+SET total = s.total,
+    item_count = s.item_count
+FROM (
+    SELECT cart_id, SUM(quantity * unit_price) AS total, COUNT(*) AS item_count
+    FROM cart_items
+    GROUP BY cart_id
+) s
+WHERE s.cart_id = c.id;
+
+COMMENT ON COLUMN carts.total IS 'Suma de quantity * unit_price de los items del carrito (desnormalizado)';
+COMMENT ON COLUMN carts.item_count IS 'Cantidad de líneas del carrito (desnormalizado)';
+
+COMMIT;
@@ -0,0 +1,40 @@
+-- Script SQL para garantizar un único carrito por usuario
+-- Ejecutar este script en la base de datos PostgreSQL
+
+BEGIN;
+
+-- 1. Carritos duplicados: se conserva el de menor id de cada usuario
+CREATE TEMP TABLE cart_dedup ON COMMIT DROP AS
+SELECT id, MIN(id) OVER (PARTITION BY user_id) AS keep_id FROM carts;
+
+-- 2. Si el mismo producto está en varios carritos del usuario, se conserva el item del carrito de menor id
+DELETE FROM cart_items ci
+USING cart_dedup d
+WHERE ci.cart_id = d.id
+  AND d.id <> d.keep_id
+  AND EXISTS (
+      SELECT 1
+      FROM cart_items other
+      JOIN cart_dedup od ON od.id = other.cart_id
+      WHERE od.keep_id = d.keep_id
+        AND other.product_id = ci.product_id
+        AND other.cart_id < ci.cart_id
+  );
+
+-- 3. Los items restantes pasan al carrito conservado y se eliminan los duplicados
+UPDATE cart_items ci
+SET cart_id = d.keep_id
+FROM cart_dedup d
+WHERE ci.cart_id = d.id
+  AND d.id <> d.keep_id;
+
+DELETE FROM carts c
+USING cart_dedup d
+WHERE c.id = d.id
+  AND d.id <> d.keep_id;
+
+-- 4. Índice único que usa INSERT ... ON CONFLICT (user_id); reemplaza al índice simple
+CREATE UNIQUE INDEX IF NOT EXISTS idx_cart_user_unique ON carts(user_id);
+DROP INDEX IF EXISTS idx_cart_user_id;
+
+COMMIT;
@@ -0,0 +1,5 @@
+-- Script SQL para el control de concurrencia optimista de los carritos
+-- Ejecutar este script en la base de datos PostgreSQL
+
+-- Versión que se incrementa en cada modificación del carrito; se expone como ETag (If-Match / If-None-Match)
+ALTER TABLE carts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,6 @@
+-- Script SQL para el control de concurrencia optimista de productos y usuarios
+-- Ejecutar este script en la base de datos PostgreSQL
+
+-- Versión que Hibernate incrementa en cada UPDATE (@Version); se expone como ETag en los PATCH
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
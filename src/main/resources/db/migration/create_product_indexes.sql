@@ -0,0 +1,7 @@
+-- Script SQL para los índices de paginación del catálogo de productos
+-- Ejecutar este script en la base de datos PostgreSQL
+
+-- Índice compuesto para la paginación por keyset ordenada por (categoria, id)
+-- y para el listado filtrado por categoría ordenado por id.
+-- El orden por id ya está cubierto por la clave primaria.
+CREATE INDEX IF NOT EXISTS idx_products_categoria_id ON products(categoria, id);
@@ -0,0 +1,14 @@
+-- Script SQL para la tabla de sesiones revocadas (tokens de refresco)
+-- Ejecutar este script en la base de datos PostgreSQL
+
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Índice para borrar las filas de tokens ya expirados
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
+
+-- Índice para la sincronización incremental de revocaciones entre instancias
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens(revoked_at);
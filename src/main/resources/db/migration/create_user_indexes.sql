@@ -0,0 +1,12 @@
+-- Script SQL para los índices del listado paginado de usuarios
+-- Ejecutar este script en la base de datos PostgreSQL
+
+-- Filtros del listado de administración combinados con el orden por id (paginación por keyset)
+CREATE INDEX IF NOT EXISTS idx_users_rol_id ON users(rol, id);
+CREATE INDEX IF NOT EXISTS idx_users_region_comuna_id ON users(region, comuna, id);
+CREATE INDEX IF NOT EXISTS idx_users_comuna_id ON users(comuna, id);
+-- Filtro solo por región: (region, comuna, id) no entrega las filas ordenadas por id
+CREATE INDEX IF NOT EXISTS idx_users_region_id ON users(region, id);
+
+-- Sincronización incremental del índice de disponibilidad entre instancias
+CREATE INDEX IF NOT EXISTS idx_users_updated_at ON users(updated_at);
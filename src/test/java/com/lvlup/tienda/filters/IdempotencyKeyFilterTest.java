@@ -0,0 +1,188 @@
+package com.lvlup.tienda.filters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyKeyFilterTest {
+
+    private static final String BODY = "{\"productId\":1,\"quantity\":2}";
+
+    private final IdempotencyKeyFilter filter = new IdempotencyKeyFilter(new ObjectMapper(), 1000, 3600, 5000);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void firstRequestExecutesAndRetryReplaysStoredResponse() throws Exception {
+        MockHttpServletResponse first = send("clave-1", BODY, created());
+        MockHttpServletResponse retry = send("clave-1", BODY, created());
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(first.getHeader(IdempotencyKeyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader("ETag")).isEqualTo("\"3\"");
+        assertThat(retry.getHeader(IdempotencyKeyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void downstreamReadsTheOriginalBody() throws Exception {
+        List<String> seen = new ArrayList<>();
+        send("clave-1", BODY, (request, response) -> {
+            seen.add(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            ((HttpServletResponse) response).setStatus(204);
+        });
+
+        assertThat(seen).containsExactly(BODY);
+    }
+
+    @Test
+    void downstreamCanReadTheBodyWithReadListener() throws Exception {
+        List<String> events = new ArrayList<>();
+        send("clave-1", BODY, (request, response) -> {
+            ServletInputStream input = request.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    events.add(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    events.add("fin");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    events.add("error");
+                }
+            });
+            ((HttpServletResponse) response).setStatus(204);
+        });
+
+        assertThat(events).containsExactly(BODY, "fin");
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        send("clave-1", BODY, created());
+        MockHttpServletResponse reused = send("clave-1", "{\"productId\":1,\"quantity\":5}", created());
+
+        assertThat(executions).hasValue(1);
+        assertThat(reused.getStatus()).isEqualTo(422);
+        assertThat(reused.getHeader(IdempotencyKeyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    void differentKeysExecuteIndependently() throws Exception {
+        send("clave-1", BODY, created());
+        send("clave-2", BODY, created());
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void serverErrorsAreNotStored() throws Exception {
+        send("clave-1", BODY, (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(503);
+        });
+        MockHttpServletResponse retry = send("clave-1", BODY, created());
+
+        assertThat(executions).hasValue(2);
+        assertThat(retry.getStatus()).isEqualTo(201);
+    }
+
+    @Test
+    void invalidKeyIsRejected() throws Exception {
+        MockHttpServletResponse response = send("   ", BODY, created());
+
+        assertThat(executions).hasValue(0);
+        assertThat(response.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    void requestsWithoutKeyAreNotTracked() throws Exception {
+        send(null, BODY, created());
+        send(null, BODY, created());
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void concurrentDuplicatesExecuteOnceAndShareTheResponse() throws Exception {
+        int clients = 8;
+        CountDownLatch executing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowChain = (request, response) -> {
+            executing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            created().doFilter(request, response);
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                responses.add(pool.submit(() -> send("clave-1", BODY, slowChain)));
+            }
+            assertThat(executing.await(5, TimeUnit.SECONDS)).isTrue();
+            release.countDown();
+
+            for (Future<MockHttpServletResponse> future : responses) {
+                MockHttpServletResponse response = future.get(10, TimeUnit.SECONDS);
+                assertThat(response.getStatus()).isEqualTo(201);
+                assertThat(response.getContentAsString()).isEqualTo("{\"id\":1}");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(executions).hasValue(1);
+    }
+
+    private FilterChain created() {
+        return (request, response) -> {
+            executions.incrementAndGet();
+            request.getInputStream().readAllBytes();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(201);
+            http.setHeader("ETag", "\"3\"");
+            http.setContentType("application/json");
+            http.getWriter().write("{\"id\":1}");
+        };
+    }
+
+    private MockHttpServletResponse send(String key, String body, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/carts/items");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyKeyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
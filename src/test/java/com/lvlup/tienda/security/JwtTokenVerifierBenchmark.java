@@ -0,0 +1,134 @@
+package com.lvlup.tienda.security;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lvlup.tienda.security.JwtTokenVerifier.VerifiedToken;
+import com.lvlup.tienda.services.users.RolePermissionRegistry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de validar el token de cada petición, antes y después de JwtTokenVerifier.
+ * <ul>
+ *   <li>perRequestParser: lo que hacía JwtValidationFilter antes, un parser y un ObjectMapper nuevos por petición
+ *   y las authorities como lista JSON en el claim "authorities".</li>
+ *   <li>sharedParser: el parser compartido y el claim "auth" compacto, que es lo que cuesta un fallo de caché.</li>
+ *   <li>sharedParserWithCache: JwtTokenVerifier.verify con el token ya verificado, el caso normal.</li>
+ * </ul>
+ * No se ejecuta con los tests. Para correrlo:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.lvlup.tienda.security.JwtTokenVerifierBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenVerifierBenchmark {
+
+    private static final String AUTHORITIES_JSON =
+            "[{\"authority\":\"ROLE_CLIENTE\"},{\"authority\":\"PRODUCT_READ\"},{\"authority\":\"CART_UPDATE\"}]";
+    private static final List<GrantedAuthority> AUTHORITIES = Arrays.stream(
+            new String[]{"ROLE_CLIENTE", "PRODUCT_READ", "CART_UPDATE"})
+            .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+            .toList();
+
+    private JwtKeyRing keyRing;
+    private JwtParser sharedParser;
+    private RolePermissionRegistry registry;
+    private JwtTokenVerifier verifier;
+    private String legacyToken;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        keyRing = new JwtKeyRing("", "", "");
+        sharedParser = Jwts.parser().keyLocator(keyRing).build();
+        // Sin base de datos: la decodificación de las máscaras se reemplaza por la lista fija
+        registry = new RolePermissionRegistry() {
+            @Override
+            public List<GrantedAuthority> decode(String encoded) {
+                return AUTHORITIES;
+            }
+        };
+        verifier = new JwtTokenVerifier(new SimpleMeterRegistry(), registry, keyRing, 10_000);
+
+        Date expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        legacyToken = Jwts.builder()
+                .subject("cliente@lvlup.cl")
+                .claim("authorities", AUTHORITIES_JSON)
+                .claim("userId", 7L)
+                .expiration(expiration)
+                .signWith(keyRing.signingKey())
+                .compact();
+        token = Jwts.builder()
+                .header().keyId(keyRing.signingKid()).and()
+                .subject("cliente@lvlup.cl")
+                .claim("auth", "1.AQ.Bw")
+                .claim("userId", 7L)
+                .claim("sid", "sesion-1")
+                .expiration(expiration)
+                .signWith(keyRing.signingKey())
+                .compact();
+        verifier.verify(token);
+    }
+
+    @Benchmark
+    public List<SimpleGrantedAuthority> perRequestParser() throws IOException {
+        Claims claims = Jwts.parser()
+                .verifyWith(keyRing.signingKey())
+                .build()
+                .parseSignedClaims(legacyToken)
+                .getPayload();
+        return Arrays.asList(new ObjectMapper()
+                .addMixIn(SimpleGrantedAuthority.class, SimpleGrantedAuthorityJsonCreator.class)
+                .readValue(claims.get("authorities").toString().getBytes(), SimpleGrantedAuthority[].class));
+    }
+
+    @Benchmark
+    public List<GrantedAuthority> sharedParser() {
+        Claims claims = sharedParser.parseSignedClaims(token).getPayload();
+        return registry.decode(claims.get("auth", String.class));
+    }
+
+    @Benchmark
+    public VerifiedToken sharedParserWithCache() {
+        return verifier.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtTokenVerifierBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    // Mixin con el que el filtro anterior deserializaba las authorities
+    abstract static class SimpleGrantedAuthorityJsonCreator {
+
+        @JsonCreator
+        SimpleGrantedAuthorityJsonCreator(@JsonProperty("authority") String role) {
+        }
+    }
+}
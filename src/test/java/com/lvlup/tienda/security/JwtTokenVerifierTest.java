@@ -0,0 +1,161 @@
+package com.lvlup.tienda.security;
+
+import com.lvlup.tienda.security.JwtTokenVerifier.VerifiedToken;
+import com.lvlup.tienda.services.users.RolePermissionRegistry;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenVerifierTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_CLIENTE"));
+
+    private final MutableClock clock = new MutableClock(NOW);
+    private final JwtKeyRing keyRing = new JwtKeyRing("", "", "");
+    private CountingRegistry registry;
+    private JwtTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        registry = new CountingRegistry();
+        verifier = new JwtTokenVerifier(new SimpleMeterRegistry(), registry, keyRing, 100, clock,
+                () -> TimeUnit.MILLISECONDS.toNanos(clock.millis()));
+    }
+
+    @Test
+    void verifiesAccessToken() {
+        VerifiedToken verified = verifier.verify(accessToken(NOW.plusSeconds(900)));
+
+        assertThat(verified.principal().getName()).isEqualTo("cliente@lvlup.cl");
+        assertThat(verified.principal().getId()).isEqualTo(7L);
+        assertThat(verified.sessionId()).isEqualTo("sesion-1");
+        assertThat(verified.authorities()).isEqualTo(AUTHORITIES);
+        assertThat(verified.expiresAtMillis()).isEqualTo(NOW.plusSeconds(900).toEpochMilli());
+    }
+
+    @Test
+    void repeatedVerificationIsServedFromCache() {
+        String token = accessToken(NOW.plusSeconds(900));
+
+        VerifiedToken first = verifier.verify(token);
+        clock.advance(Duration.ofMinutes(10));
+        VerifiedToken second = verifier.verify(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(registry.decodes).isEqualTo(1);
+    }
+
+    @Test
+    void cachedEntryExpiresAtTokenExpiration() {
+        Instant expiration = NOW.plusSeconds(60);
+        String token = accessToken(expiration);
+        VerifiedToken cached = verifier.verify(token);
+
+        clock.set(expiration.minusMillis(1));
+        assertThat(verifier.verify(token)).isSameAs(cached);
+
+        clock.set(expiration.plusMillis(1));
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(registry.decodes).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsRefreshTokenAsAccessToken() {
+        String refresh = Jwts.builder()
+                .header().keyId(keyRing.signingKid()).and()
+                .id("sesion-1")
+                .subject("cliente@lvlup.cl")
+                .claim("typ", JwtTokenIssuer.REFRESH_TOKEN_TYPE)
+                .expiration(Date.from(NOW.plusSeconds(900)))
+                .signWith(keyRing.signingKey())
+                .compact();
+
+        assertThatThrownBy(() -> verifier.verify(refresh)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsTokenSignedWithUnknownKey() {
+        JwtKeyRing otherRing = new JwtKeyRing("", "", "");
+        String token = Jwts.builder()
+                .header().keyId(otherRing.signingKid()).and()
+                .subject("cliente@lvlup.cl")
+                .claim("auth", "1.AQ.AQ")
+                .expiration(Date.from(NOW.plusSeconds(900)))
+                .signWith(otherRing.signingKey())
+                .compact();
+
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(JwtException.class);
+    }
+
+    private String accessToken(Instant expiration) {
+        return Jwts.builder()
+                .header().keyId(keyRing.signingKid()).and()
+                .subject("cliente@lvlup.cl")
+                .claim("auth", "1.AQ.AQ")
+                .claim("userId", 7L)
+                .claim("sid", "sesion-1")
+                .expiration(Date.from(expiration))
+                .signWith(keyRing.signingKey())
+                .compact();
+    }
+
+    // Las máscaras del claim "auth" dependen de las tablas de roles; aquí basta una lista fija
+    private static final class CountingRegistry extends RolePermissionRegistry {
+        int decodes;
+
+        @Override
+        public List<GrantedAuthority> decode(String encoded) {
+            decodes++;
+            return AUTHORITIES;
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.lvlup.tienda.security;
+
+import com.lvlup.tienda.services.users.RolePermissionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    // login: ráfaga de 3 y una petición por segundo
+    private static final int LOGIN_CAPACITY = 3;
+    private static final int LOGIN_PER_MINUTE = 60;
+
+    private final AtomicLong nanos = new AtomicLong(Duration.ofHours(1).toNanos());
+    private final AtomicInteger passed = new AtomicInteger();
+    private final FilterChain chain = (request, response) -> passed.incrementAndGet();
+
+    private RateLimitFilter filter(boolean enabled) {
+        return new RateLimitFilter(null, new SimpleMeterRegistry(), enabled, 1000, 10,
+                LOGIN_CAPACITY, LOGIN_PER_MINUTE, 5, 5, 30, 120, 30, 120, nanos::get);
+    }
+
+    @Test
+    void allowsBurstUpToCapacityThenRejects() throws Exception {
+        RateLimitFilter filter = filter(true);
+
+        for (int i = 0; i < LOGIN_CAPACITY; i++) {
+            assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+        MockHttpServletResponse rejected = login(filter, "10.0.0.1");
+
+        assertThat(passed).hasValue(LOGIN_CAPACITY);
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    @Test
+    void refillsOneRequestPerInterval() throws Exception {
+        RateLimitFilter filter = filter(true);
+        for (int i = 0; i < LOGIN_CAPACITY; i++) {
+            login(filter, "10.0.0.1");
+        }
+
+        advance(Duration.ofMillis(500));
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(429);
+
+        advance(Duration.ofMillis(500));
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() throws Exception {
+        RateLimitFilter filter = filter(true);
+        for (int i = 0; i < LOGIN_CAPACITY; i++) {
+            login(filter, "10.0.0.1");
+        }
+
+        advance(Duration.ofMillis(900));
+
+        assertThat(login(filter, "10.0.0.1").getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    @Test
+    void idleTimeDoesNotAccumulateBeyondCapacity() throws Exception {
+        RateLimitFilter filter = filter(true);
+        login(filter, "10.0.0.1");
+
+        advance(Duration.ofMinutes(5));
+        int accepted = 0;
+        for (int i = 0; i < LOGIN_CAPACITY * 3; i++) {
+            if (login(filter, "10.0.0.1").getStatus() == 200) {
+                accepted++;
+            }
+        }
+
+        assertThat(accepted).isEqualTo(LOGIN_CAPACITY);
+    }
+
+    @Test
+    void clientsHaveIndependentBuckets() throws Exception {
+        RateLimitFilter filter = filter(true);
+        for (int i = 0; i < LOGIN_CAPACITY; i++) {
+            login(filter, "10.0.0.1");
+        }
+
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(429);
+        assertThat(login(filter, "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void routesHaveIndependentBuckets() throws Exception {
+        RateLimitFilter filter = filter(true);
+        for (int i = 0; i < LOGIN_CAPACITY; i++) {
+            login(filter, "10.0.0.1");
+        }
+
+        MockHttpServletRequest search = request("GET", "/api/v1/products/search", "10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(search, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void unlistedRoutesAreNotLimited() throws Exception {
+        RateLimitFilter filter = filter(true);
+
+        for (int i = 0; i < 50; i++) {
+            filter.doFilter(request("GET", "/api/v1/products", "10.0.0.1"), new MockHttpServletResponse(), chain);
+        }
+
+        assertThat(passed).hasValue(50);
+    }
+
+    @Test
+    void disabledFilterNeverRejects() throws Exception {
+        RateLimitFilter filter = filter(false);
+
+        for (int i = 0; i < LOGIN_CAPACITY * 5; i++) {
+            assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void emptyBearerTokenIsLimitedByIp() throws Exception {
+        JwtTokenVerifier verifier = new JwtTokenVerifier(new SimpleMeterRegistry(), new RolePermissionRegistry(),
+                new JwtKeyRing("", "", ""), 100, Clock.systemUTC(), nanos::get);
+        RateLimitFilter filter = new RateLimitFilter(verifier, new SimpleMeterRegistry(), true, 1000, 10,
+                LOGIN_CAPACITY, LOGIN_PER_MINUTE, 5, 5, 30, 120, 30, 120, nanos::get);
+
+        for (int i = 0; i <= LOGIN_CAPACITY; i++) {
+            MockHttpServletRequest request = request("POST", "/login", "10.0.0.1");
+            request.addHeader("Authorization", "Bearer ");
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+        }
+
+        // Sin excepción: las peticiones cuentan contra el cubo de la IP
+        assertThat(passed).hasValue(LOGIN_CAPACITY);
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    private MockHttpServletResponse login(RateLimitFilter filter, String ip) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/login", ip), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,93 @@
+package com.lvlup.tienda.services.products;
+
+import com.lvlup.tienda.dtos.ProductDto;
+import com.lvlup.tienda.models.products.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCatalogCacheTest {
+
+    private final ProductCatalogCache cache = new ProductCatalogCache(new SimpleMeterRegistry(), 100, 600);
+
+    @Test
+    void productIsLoadedOnceAndServedFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getProduct(1L, id -> {
+            loads.incrementAndGet();
+            return Optional.of(product(id, 1000));
+        });
+        Optional<ProductDto> cached = cache.getProduct(1L, id -> {
+            loads.incrementAndGet();
+            return Optional.of(product(id, 1000));
+        });
+
+        assertThat(cached).map(ProductDto::getPrecio).contains(1000);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void missingProductIsNotCached() {
+        assertThat(cache.getProduct(1L, id -> Optional.empty())).isEmpty();
+        assertThat(cache.getProduct(1L, id -> Optional.of(product(id, 1000)))).isPresent();
+    }
+
+    @Test
+    void evictionDuringBatchLoadDiscardsStaleRow() {
+        // La carga lee el precio anterior y, antes de guardarlo, otra transacción confirma y evicta el producto
+        cache.getProductsByIds(List.of(1L), ids -> {
+            List<Product> stale = List.of(product(1L, 1000));
+            cache.evictProducts(List.of(1L));
+            return stale;
+        });
+
+        Optional<ProductDto> reloaded = cache.getProduct(1L, id -> Optional.of(product(id, 800)));
+
+        assertThat(reloaded).map(ProductDto::getPrecio).contains(800);
+    }
+
+    @Test
+    void saveDuringCategoryLoadDiscardsStaleList() {
+        List<List<Long>> loadedIds = new ArrayList<>();
+        cache.getProductsByCategoria("Consolas", () -> {
+            List<Product> stale = List.of(product(1L, 1000));
+            cache.onProductSaved(product(2L, 500), null);
+            return stale;
+        }, ids -> {
+            loadedIds.add(List.copyOf(ids));
+            return List.of();
+        });
+
+        List<ProductDto> reloaded = cache.getProductsByCategoria("Consolas",
+                () -> List.of(product(1L, 1000), product(2L, 500)), ids -> List.of());
+
+        assertThat(reloaded).extracting(ProductDto::getId).containsExactly(1L, 2L);
+        assertThat(loadedIds).isEmpty();
+    }
+
+    @Test
+    void savedProductReplacesCachedEntry() {
+        cache.getProduct(1L, id -> Optional.of(product(id, 1000)));
+
+        cache.onProductSaved(product(1L, 900), "Consolas");
+
+        assertThat(cache.getProduct(1L, id -> Optional.empty())).map(ProductDto::getPrecio).contains(900);
+    }
+
+    private static Product product(Long id, int precio) {
+        Product product = new Product();
+        product.setId(id);
+        product.setNombre("Producto " + id);
+        product.setCategoria("Consolas");
+        product.setPrecio(precio);
+        product.setStock(10);
+        return product;
+    }
+}
@@ -0,0 +1,152 @@
+package com.lvlup.tienda.services.products;
+
+import com.lvlup.tienda.models.products.Product;
+import com.lvlup.tienda.repositories.products.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index.index(product(1L, "Consola PlayStation 5", "Consolas", "Edición estándar con lector de discos"));
+        index.index(product(2L, "Teclado Mecánico RGB", "Periféricos", "Switches rojos"));
+        index.index(product(3L, "Mouse Inalámbrico", "Periféricos", "Ideal para juegos de Pokémon"));
+        index.index(product(4L, "Alfombrilla XL", "Accesorios", "Compatible con cualquier mouse"));
+        index.index(product(5L, "Auriculares Inalámbricos", "Audio", "Cancelación de ruido"));
+    }
+
+    @Test
+    void exactTermMatches() {
+        assertThat(index.search("consola", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void matchingIgnoresCaseAndAccents() {
+        assertThat(index.search("POKEMON", 10)).containsExactly(3L);
+        assertThat(index.search("mecanico", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void prefixMatchesWhileTyping() {
+        assertThat(index.search("play", 10)).containsExactly(1L);
+        assertThat(index.search("inala", 10)).containsExactlyInAnyOrder(3L, 5L);
+    }
+
+    @Test
+    void exactMatchOutranksPrefixMatch() {
+        index.index(product(6L, "Mousepad Gamer", "Accesorios", null));
+
+        assertThat(index.search("mouse", 10)).startsWith(3L);
+    }
+
+    @Test
+    void nameMatchOutranksDescriptionMatch() {
+        assertThat(index.search("mouse", 10)).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void singleTypoMatchesMediumLengthTerms() {
+        assertThat(index.search("teclafo", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void twoTyposMatchLongTerms() {
+        assertThat(index.search("aurikularez", 10)).containsExactly(5L);
+    }
+
+    @Test
+    void shortTermsRequireExactOrPrefixMatch() {
+        assertThat(index.search("rgv", 10)).isEmpty();
+    }
+
+    @Test
+    void typoMatchRequiresSameFirstLetter() {
+        assertThat(index.search("veclado", 10)).isEmpty();
+    }
+
+    @Test
+    void allTermsMustMatch() {
+        assertThat(index.search("mouse inalambrico", 10)).containsExactly(3L);
+        assertThat(index.search("consola teclado", 10)).isEmpty();
+    }
+
+    @Test
+    void limitTruncatesRankedResults() {
+        assertThat(index.search("perifericos", 1)).hasSize(1);
+    }
+
+    @Test
+    void reindexReplacesOldTerms() {
+        index.index(product(2L, "Teclado Membrana", "Periféricos", null));
+
+        assertThat(index.search("rgb", 10)).isEmpty();
+        assertThat(index.search("membrana", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void removedProductNoLongerMatches() {
+        index.remove(1L);
+
+        assertThat(index.search("consola", 10)).isEmpty();
+    }
+
+    @Test
+    void rebuildLoadsAllProducts() {
+        when(productRepository.findAll()).thenReturn(List.of(product(7L, "Control DualSense", "Accesorios", null)));
+
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("dualsense", 10)).containsExactly(7L);
+        assertThat(index.search("consola", 10)).isEmpty();
+    }
+
+    @Test
+    void writesDuringRebuildSurviveOlderSnapshot() {
+        when(productRepository.findAll()).thenAnswer(invocation -> {
+            // La lectura de la BD es anterior a estas escrituras
+            index.index(product(2L, "Teclado Membrana", "Periféricos", null));
+            index.remove(4L);
+            return List.of(
+                    product(2L, "Teclado Mecánico RGB", "Periféricos", "Switches rojos"),
+                    product(4L, "Alfombrilla XL", "Accesorios", "Compatible con cualquier mouse"));
+        });
+
+        index.rebuild();
+
+        assertThat(index.search("membrana", 10)).containsExactly(2L);
+        assertThat(index.search("rgb", 10)).isEmpty();
+        assertThat(index.search("alfombrilla", 10)).isEmpty();
+    }
+
+    @Test
+    void blankQueryReturnsNothing() {
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    private static Product product(Long id, String nombre, String categoria, String descripcion) {
+        Product product = new Product();
+        product.setId(id);
+        product.setNombre(nombre);
+        product.setCategoria(categoria);
+        product.setDescripcion(descripcion);
+        return product;
+    }
+}
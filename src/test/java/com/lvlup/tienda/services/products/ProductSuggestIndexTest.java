@@ -0,0 +1,91 @@
+package com.lvlup.tienda.services.products;
+
+import com.lvlup.tienda.dtos.ProductSuggestionDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSuggestIndexTest {
+
+    private ProductSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSuggestIndex(new SimpleMeterRegistry());
+        index.index(1L, "Consola PlayStation 5");
+        index.index(2L, "Control DualSense");
+        index.index(3L, "Cámara Óptica HD");
+        index.index(4L, "Consola PS5 Slim");
+        index.index(5L, "Cable USB-C");
+    }
+
+    @Test
+    void suggestionsAreOrderedByCompletedKey() {
+        assertThat(index.suggest("con", 10))
+                .extracting(ProductSuggestionDto::getId)
+                .containsExactly(1L, 4L, 2L);
+    }
+
+    @Test
+    void prefixMatchesAnyWordStart() {
+        assertThat(index.suggest("ps5", 10))
+                .extracting(ProductSuggestionDto::getId)
+                .containsExactly(4L);
+        assertThat(index.suggest("sole", 10)).isEmpty();
+    }
+
+    @Test
+    void productMatchingSeveralWordsAppearsOnce() {
+        index.index(6L, "Pack Pad Gamer");
+
+        assertThat(index.suggest("pa", 10))
+                .extracting(ProductSuggestionDto::getId)
+                .containsExactly(6L);
+    }
+
+    @Test
+    void limitKeepsTopSuggestions() {
+        assertThat(index.suggest("con", 2))
+                .extracting(ProductSuggestionDto::getId)
+                .containsExactly(1L, 4L);
+    }
+
+    @Test
+    void matchingIgnoresCaseAndAccents() {
+        assertThat(index.suggest("CAMARA", 10))
+                .extracting(ProductSuggestionDto::getNombre)
+                .containsExactly("Cámara Óptica HD");
+        assertThat(index.suggest("ópt", 10))
+                .extracting(ProductSuggestionDto::getId)
+                .containsExactly(3L);
+    }
+
+    @Test
+    void reindexReplacesOldName() {
+        index.index(2L, "Mando Inalámbrico");
+
+        assertThat(index.suggest("con", 10))
+                .extracting(ProductSuggestionDto::getId)
+                .containsExactly(1L, 4L);
+        assertThat(index.suggest("mando", 10))
+                .extracting(ProductSuggestionDto::getNombre)
+                .containsExactly("Mando Inalámbrico");
+    }
+
+    @Test
+    void removedProductNoLongerSuggested() {
+        index.remove(1L);
+
+        assertThat(index.suggest("con", 10))
+                .extracting(ProductSuggestionDto::getId)
+                .containsExactly(4L, 2L);
+    }
+
+    @Test
+    void blankOrUnknownPrefixReturnsNothing() {
+        assertThat(index.suggest("  ", 10)).isEmpty();
+        assertThat(index.suggest("xyz", 10)).isEmpty();
+    }
+}
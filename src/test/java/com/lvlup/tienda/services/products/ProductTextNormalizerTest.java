@@ -0,0 +1,35 @@
+package com.lvlup.tienda.services.products;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductTextNormalizerTest {
+
+    @Test
+    void foldsCaseAndAccents() {
+        assertThat(ProductTextNormalizer.normalize("Pokémon ÁRBOL Ñandú")).isEqualTo("pokemon arbol nandu");
+    }
+
+    @Test
+    void replacesPunctuationWithSingleSpaces() {
+        assertThat(ProductTextNormalizer.normalize("  PS5 -- (Edición Digital)!  ")).isEqualTo("ps5 edicion digital");
+    }
+
+    @Test
+    void nullAndBlankNormalizeToEmpty() {
+        assertThat(ProductTextNormalizer.normalize(null)).isEmpty();
+        assertThat(ProductTextNormalizer.normalize("")).isEmpty();
+        assertThat(ProductTextNormalizer.normalize("¡¿?!")).isEmpty();
+    }
+
+    @Test
+    void tokenizeSplitsNormalizedWords() {
+        assertThat(ProductTextNormalizer.tokenize("Teclado Mecánico RGB, 60%")).containsExactly("teclado", "mecanico", "rgb", "60");
+    }
+
+    @Test
+    void tokenizeOfEmptyTextHasNoTokens() {
+        assertThat(ProductTextNormalizer.tokenize("  ...  ")).isEmpty();
+    }
+}
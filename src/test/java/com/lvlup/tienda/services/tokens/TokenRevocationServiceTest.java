@@ -0,0 +1,117 @@
+package com.lvlup.tienda.services.tokens;
+
+import com.lvlup.tienda.repositories.tokens.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TokenRevocationService service;
+
+    // Contenido de revoked_tokens
+    private final Set<String> store = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(revokedTokenRepository.findAllJtis()).thenAnswer(invocation -> List.copyOf(store));
+        when(revokedTokenRepository.existsById(anyString())).thenAnswer(invocation -> store.contains(invocation.getArgument(0)));
+        when(revokedTokenRepository.insertIfAbsent(anyString(), any()))
+                .thenAnswer(invocation -> store.add(invocation.getArgument(0)) ? 1 : 0);
+    }
+
+    @Test
+    void everyStoredJtiIsRevokedAfterRebuild() {
+        List<String> jtis = IntStream.range(0, 5_000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+        store.addAll(jtis);
+
+        service.rebuild();
+
+        assertThat(jtis).allMatch(service::isRevoked);
+    }
+
+    @Test
+    void revocationDuringRebuildSurvivesFilterSwap() {
+        store.add("antes");
+        when(revokedTokenRepository.findAllJtis()).thenAnswer(invocation -> {
+            List<String> snapshot = List.copyOf(store);
+            // Revocación que entra después de leer la tabla y antes de reemplazar el filtro
+            service.revoke("durante", LocalDateTime.now().plusDays(1));
+            return snapshot;
+        });
+
+        service.rebuild();
+
+        assertThat(service.isRevoked("antes")).isTrue();
+        assertThat(service.isRevoked("durante")).isTrue();
+    }
+
+    @Test
+    void revokedOnAnotherInstanceIsPickedUpBySync() {
+        service.rebuild();
+        store.add("otra-instancia");
+        assertThat(service.isRevoked("otra-instancia")).isFalse();
+
+        when(revokedTokenRepository.findJtisRevokedSince(any())).thenReturn(List.of("otra-instancia"));
+        service.syncRecent();
+
+        assertThat(service.isRevoked("otra-instancia")).isTrue();
+    }
+
+    @Test
+    void refreshCheckSeesRevocationBeforeSync() {
+        service.rebuild();
+        store.add("otra-instancia");
+
+        assertThat(service.isRevokedInStore("otra-instancia")).isTrue();
+    }
+
+    @Test
+    void filterMissSkipsDatabase() {
+        service.rebuild();
+
+        assertThat(service.isRevoked("no-revocado")).isFalse();
+        verify(revokedTokenRepository, never()).existsById("no-revocado");
+    }
+
+    @Test
+    void secondRevocationOfSameSessionReportsReuse() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+
+        assertThat(service.revoke("sesion", expiresAt)).isTrue();
+        assertThat(service.revoke("sesion", expiresAt)).isFalse();
+        assertThat(service.isRevoked("sesion")).isTrue();
+    }
+}
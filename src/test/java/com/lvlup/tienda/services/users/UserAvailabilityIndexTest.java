@@ -0,0 +1,79 @@
+package com.lvlup.tienda.services.users;
+
+import com.lvlup.tienda.repositories.users.UserIdentifierView;
+import com.lvlup.tienda.repositories.users.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserAvailabilityIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserAvailabilityIndex index;
+
+    @Test
+    void notReadyIndexAnswersMaybe() {
+        assertThat(index.mightContainCorreo("ana@duoc.cl")).isTrue();
+    }
+
+    @Test
+    void rebuildLoadsRegisteredUsersNormalized() {
+        when(userRepository.findAllIdentifiers()).thenReturn(List.of(identifier("Ana@Duoc.cl", "12.345.678-k")));
+
+        index.rebuild();
+
+        assertThat(index.mightContainCorreo(" ana@duoc.cl ")).isTrue();
+        assertThat(index.mightContainRut("12345678K")).isTrue();
+        assertThat(index.mightContainCorreo("eva@duoc.cl")).isFalse();
+    }
+
+    @Test
+    void registrationOnAnotherInstanceIsPickedUpBySync() {
+        when(userRepository.findAllIdentifiers()).thenReturn(List.of());
+        index.rebuild();
+        assertThat(index.mightContainCorreo("eva@duoc.cl")).isFalse();
+
+        when(userRepository.findIdentifiersUpdatedSince(any())).thenReturn(List.of(identifier("eva@duoc.cl", null)));
+        index.syncRecent();
+
+        assertThat(index.mightContainCorreo("eva@duoc.cl")).isTrue();
+    }
+
+    @Test
+    void addDuringRebuildSurvivesFilterSwap() {
+        when(userRepository.findAllIdentifiers()).thenAnswer(invocation -> {
+            index.add("eva@duoc.cl", null);
+            return List.of();
+        });
+
+        index.rebuild();
+
+        assertThat(index.mightContainCorreo("eva@duoc.cl")).isTrue();
+    }
+
+    private static UserIdentifierView identifier(String correo, String rut) {
+        return new UserIdentifierView() {
+            @Override
+            public String getCorreo() {
+                return correo;
+            }
+
+            @Override
+            public String getRut() {
+                return rut;
+            }
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package com.lvlup.tienda.services.users;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lvlup.tienda.models.users.Role;
+import com.lvlup.tienda.models.users.User;
+import com.lvlup.tienda.repositories.users.RoleRepository;
+import com.lvlup.tienda.repositories.users.UserRepository;
+import com.lvlup.tienda.security.UserPrincipal;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class UserServiceImplTest {
+
+    private static final long CLIENTE_ID = 5L;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private RolePermissionRegistry rolePermissionRegistry;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private JpaUserDetailsService userDetailsService;
+
+    @Mock
+    private UserAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private Validator validator;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    private User cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = new User();
+        cliente.setId(CLIENTE_ID);
+        cliente.setNombre("Ana");
+        cliente.setCorreo("ana@duoc.cl");
+        cliente.setRol("CLIENTE");
+        cliente.setVersion(1L);
+        when(userRepository.findById(CLIENTE_ID)).thenReturn(Optional.of(cliente));
+        when(userRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rolePermissionRegistry.roleId("ROLE_ADMIN")).thenReturn(1L);
+        when(roleRepository.getReferenceById(1L)).thenReturn(new Role("ROLE_ADMIN"));
+    }
+
+    @Test
+    void clientePatchCannotChangeRol() {
+        assertThatThrownBy(() -> userService.patch(CLIENTE_ID, json("{\"rol\":\"ADMIN\"}"), null, caller(CLIENTE_ID, "ROLE_CLIENTE")))
+                .isInstanceOf(AccessDeniedException.class);
+
+        assertThat(cliente.getRol()).isEqualTo("CLIENTE");
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void clientePatchCannotSetAdminFlag() {
+        assertThatThrownBy(() -> userService.patch(CLIENTE_ID, json("{\"admin\":true}"), null, caller(CLIENTE_ID, "ROLE_CLIENTE")))
+                .isInstanceOf(AccessDeniedException.class);
+
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void clienteCannotPatchAnotherAccount() {
+        assertThatThrownBy(() -> userService.patch(CLIENTE_ID, json("{\"nombre\":\"Eva\"}"), null, caller(9L, "ROLE_CLIENTE")))
+                .isInstanceOf(AccessDeniedException.class);
+
+        assertThat(cliente.getNombre()).isEqualTo("Ana");
+    }
+
+    @Test
+    void clienteCanPatchOwnProfile() {
+        User patched = userService.patch(CLIENTE_ID, json("{\"nombre\":\"Eva\"}"), null, caller(CLIENTE_ID, "ROLE_CLIENTE"));
+
+        assertThat(patched.getNombre()).isEqualTo("Eva");
+        assertThat(patched.getRol()).isEqualTo("CLIENTE");
+    }
+
+    @Test
+    void adminCanChangeRolOfAnyAccount() {
+        User patched = userService.patch(CLIENTE_ID, json("{\"rol\":\"admin\"}"), null, caller(1L, "ROLE_ADMIN"));
+
+        assertThat(patched.getRol()).isEqualTo("ADMIN");
+        assertThat(patched.getRoles()).extracting(Role::getName).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void clienteUpdateCannotChangeRol() {
+        User update = new User();
+        update.setRol("ADMIN");
+
+        assertThatThrownBy(() -> userService.update(CLIENTE_ID, update, caller(CLIENTE_ID, "ROLE_CLIENTE")))
+                .isInstanceOf(AccessDeniedException.class);
+
+        assertThat(cliente.getRol()).isEqualTo("CLIENTE");
+        verify(userRepository, never()).save(any());
+    }
+
+    private static Authentication caller(long userId, String role) {
+        return new UsernamePasswordAuthenticationToken(new UserPrincipal(userId, "caller@duoc.cl"), null,
+                List.of(new SimpleGrantedAuthority(role)));
+    }
+
+    private JsonNode json(String value) {
+        try {
+            return objectMapper.readTree(value);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.lvlup.tienda.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void everyAddedValueIsReported() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        List<String> values = randomJtis(10_000);
+        values.forEach(filter::add);
+
+        assertThat(values).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void overfilledFilterStillHasNoFalseNegatives() {
+        // Dimensionado para 100 elementos pero con 5000: sube la tasa de falsos positivos, nunca la de falsos negativos
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+        List<String> values = randomJtis(5_000);
+        values.forEach(filter::add);
+
+        assertThat(values).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        randomJtis(10_000).forEach(filter::add);
+
+        long falsePositives = randomJtis(20_000).stream().filter(filter::mightContain).count();
+
+        // 1% esperado; se deja margen para no depender de los UUID generados
+        assertThat(falsePositives).isLessThan(600);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = BloomFilter.create(1_000, 0.01);
+
+        assertThat(randomJtis(1_000)).noneMatch(filter::mightContain);
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        BloomFilter filter = BloomFilter.create(40_000, 0.01);
+        int threads = 8;
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            batches.add(randomJtis(5_000));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (List<String> batch : batches) {
+                executor.submit(() -> {
+                    start.await();
+                    batch.forEach(filter::add);
+                    return null;
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).allMatch(filter::mightContain));
+    }
+
+    private static List<String> randomJtis(int count) {
+        List<String> jtis = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            jtis.add(UUID.randomUUID().toString());
+        }
+        return jtis;
+    }
+}
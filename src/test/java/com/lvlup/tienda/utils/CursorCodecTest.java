@@ -0,0 +1,62 @@
+package com.lvlup.tienda.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+    @Test
+    void roundTripPreservesParts() {
+        String cursor = CursorCodec.encode("CATEGORIA_ASC", "Consolas y Periféricos", "42");
+
+        assertThat(CursorCodec.decode(cursor, 3)).containsExactly("CATEGORIA_ASC", "Consolas y Periféricos", "42");
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = CursorCodec.encode("ID_ASC", "¿?&/+=", "7");
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void emptyPartsSurviveRoundTrip() {
+        String cursor = CursorCodec.encode("ID_ASC", "", "1");
+
+        assertThat(CursorCodec.decode(cursor, 3)).containsExactly("ID_ASC", "", "1");
+    }
+
+    @Test
+    void rejectsCursorThatIsNotBase64() {
+        assertThatThrownBy(() -> CursorCodec.decode("no es un cursor!", 3))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Cursor de paginación inválido");
+    }
+
+    @Test
+    void rejectsCursorWithUnexpectedNumberOfParts() {
+        String cursor = CursorCodec.encode("ID_ASC", "42");
+
+        assertThatThrownBy(() -> CursorCodec.decode(cursor, 3))
+                .hasMessage("Cursor de paginación inválido");
+    }
+
+    @Test
+    void rejectsTruncatedCursor() {
+        String cursor = CursorCodec.encode("CATEGORIA_DESC", "Accesorios", "1234");
+        String truncated = cursor.substring(0, cursor.length() / 2);
+
+        assertThatThrownBy(() -> CursorCodec.decode(truncated, 3))
+                .hasMessage("Cursor de paginación inválido");
+    }
+
+    @Test
+    void rejectsCursorWithInjectedSeparator() {
+        String cursor = CursorCodec.encode("ID_ASC", "a\u001Fb", "1");
+
+        assertThatThrownBy(() -> CursorCodec.decode(cursor, 3))
+                .hasMessage("Cursor de paginación inválido");
+    }
+}
@@ -0,0 +1,99 @@
+package com.lvlup.tienda.utils;
+
+import com.lvlup.tienda.exceptions.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EntityTagsTest {
+
+    @Test
+    void tagIsQuotedVersion() {
+        assertThat(EntityTags.of(3L)).isEqualTo("\"3\"");
+    }
+
+    @Test
+    void missingVersionIsTagZero() {
+        assertThat(EntityTags.of(null)).isEqualTo("\"0\"");
+    }
+
+    @Test
+    void ifMatchReturnsVersionOfQuotedTag() {
+        assertThat(EntityTags.parseIfMatch("\"3\"")).isEqualTo(3L);
+        assertThat(EntityTags.parseIfMatch("  \"12\"  ")).isEqualTo(12L);
+    }
+
+    @Test
+    void ifMatchRoundTripsTagFromResponse() {
+        assertThat(EntityTags.parseIfMatch(EntityTags.of(41L))).isEqualTo(41L);
+    }
+
+    @Test
+    void ifMatchAcceptsUnquotedVersion() {
+        assertThat(EntityTags.parseIfMatch("5")).isEqualTo(5L);
+    }
+
+    @Test
+    void absentOrWildcardIfMatchMeansAnyVersion() {
+        assertThat(EntityTags.parseIfMatch(null)).isNull();
+        assertThat(EntityTags.parseIfMatch("")).isNull();
+        assertThat(EntityTags.parseIfMatch("   ")).isNull();
+        assertThat(EntityTags.parseIfMatch("*")).isNull();
+        assertThat(EntityTags.parseIfMatch(" * ")).isNull();
+    }
+
+    @Test
+    void rejectsIfMatchThatIsNotAVersion() {
+        assertThatThrownBy(() -> EntityTags.parseIfMatch("\"abc\""))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Encabezado If-Match inválido");
+        assertThatThrownBy(() -> EntityTags.parseIfMatch("\"\""))
+                .hasMessage("Encabezado If-Match inválido");
+    }
+
+    @Test
+    void weakIfMatchNeverMatches() {
+        assertThatThrownBy(() -> EntityTags.parseIfMatch("W/\"3\""))
+                .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    void rejectsIfMatchWithSeveralTags() {
+        assertThatThrownBy(() -> EntityTags.parseIfMatch("\"1\", \"2\""))
+                .hasMessage("Encabezado If-Match inválido");
+    }
+
+    @Test
+    void ifNoneMatchMatchesCurrentTag() {
+        assertThat(EntityTags.matchesIfNoneMatch("\"3\"", 3L)).isTrue();
+        assertThat(EntityTags.matchesIfNoneMatch("\"2\"", 3L)).isFalse();
+    }
+
+    @Test
+    void ifNoneMatchComparesWeakly() {
+        assertThat(EntityTags.matchesIfNoneMatch("W/\"3\"", 3L)).isTrue();
+    }
+
+    @Test
+    void ifNoneMatchChecksEveryTagInList() {
+        assertThat(EntityTags.matchesIfNoneMatch("\"1\", W/\"2\" ,\"3\"", 3L)).isTrue();
+        assertThat(EntityTags.matchesIfNoneMatch("\"1\",\"2\"", 3L)).isFalse();
+    }
+
+    @Test
+    void ifNoneMatchWildcardMatchesAnyVersion() {
+        assertThat(EntityTags.matchesIfNoneMatch("*", 8L)).isTrue();
+    }
+
+    @Test
+    void absentIfNoneMatchNeverMatches() {
+        assertThat(EntityTags.matchesIfNoneMatch(null, 3L)).isFalse();
+        assertThat(EntityTags.matchesIfNoneMatch(" ", 3L)).isFalse();
+    }
+
+    @Test
+    void ifNoneMatchRequiresQuotes() {
+        assertThat(EntityTags.matchesIfNoneMatch("3", 3L)).isFalse();
+    }
+}
@@ -0,0 +1,119 @@
+package com.lvlup.tienda.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonMergePatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        item = new Item();
+        item.setId(7L);
+        item.setNombre("Teclado");
+        item.setDescripcion("Mecánico");
+        item.setStock(10);
+        item.setVersion(3L);
+    }
+
+    @Test
+    void presentPropertiesReplaceValues() {
+        JsonMergePatch.apply(mapper, item, json("{\"nombre\":\"Mouse\",\"stock\":4}"));
+
+        assertThat(item.getNombre()).isEqualTo("Mouse");
+        assertThat(item.getStock()).isEqualTo(4);
+    }
+
+    @Test
+    void absentPropertiesAreLeftUntouched() {
+        JsonMergePatch.apply(mapper, item, json("{\"nombre\":\"Mouse\"}"));
+
+        assertThat(item.getDescripcion()).isEqualTo("Mecánico");
+        assertThat(item.getStock()).isEqualTo(10);
+    }
+
+    @Test
+    void explicitNullClearsValue() {
+        JsonMergePatch.apply(mapper, item, json("{\"descripcion\":null,\"stock\":null}"));
+
+        assertThat(item.getDescripcion()).isNull();
+        assertThat(item.getStock()).isNull();
+        assertThat(item.getNombre()).isEqualTo("Teclado");
+    }
+
+    @Test
+    void emptyPatchChangesNothing() {
+        JsonMergePatch.apply(mapper, item, json("{}"));
+
+        assertThat(item.getNombre()).isEqualTo("Teclado");
+        assertThat(item.getDescripcion()).isEqualTo("Mecánico");
+        assertThat(item.getStock()).isEqualTo(10);
+    }
+
+    @Test
+    void protectedPropertiesAreIgnoredEvenWhenNull() {
+        JsonMergePatch.apply(mapper, item, json("{\"id\":99,\"version\":null,\"nombre\":\"Mouse\"}"), "id", "version");
+
+        assertThat(item.getId()).isEqualTo(7L);
+        assertThat(item.getVersion()).isEqualTo(3L);
+        assertThat(item.getNombre()).isEqualTo("Mouse");
+    }
+
+    @Test
+    void patchIsNotModified() {
+        JsonNode patch = json("{\"id\":99,\"nombre\":\"Mouse\"}");
+
+        JsonMergePatch.apply(mapper, item, patch, "id");
+
+        assertThat(patch.has("id")).isTrue();
+    }
+
+    @Test
+    void returnsSameInstance() {
+        assertThat(JsonMergePatch.apply(mapper, item, json("{\"nombre\":\"Mouse\"}"))).isSameAs(item);
+    }
+
+    @Test
+    void rejectsPatchThatIsNotAnObject() {
+        assertThatThrownBy(() -> JsonMergePatch.apply(mapper, item, json("[{\"nombre\":\"Mouse\"}]")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("El patch debe ser un objeto JSON");
+        assertThatThrownBy(() -> JsonMergePatch.apply(mapper, item, null))
+                .hasMessage("El patch debe ser un objeto JSON");
+    }
+
+    @Test
+    void rejectsValueOfWrongType() {
+        assertThatThrownBy(() -> JsonMergePatch.apply(mapper, item, json("{\"stock\":\"muchos\"}")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageStartingWith("Patch inválido");
+    }
+
+    private JsonNode json(String value) {
+        try {
+            return mapper.readTree(value);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Getter
+    @Setter
+    static class Item {
+        private Long id;
+        private String nombre;
+        private String descripcion;
+        private Integer stock;
+        private Long version;
+    }
+}